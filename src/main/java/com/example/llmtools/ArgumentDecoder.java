@@ -0,0 +1,148 @@
+package com.example.llmtools;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Binds a tool call's argument JSON to the tool method's parameters.
+ *
+ * Built once per tool from its parameter list. Decoding is a single pass of
+ * a streaming parser over the arguments string: each value is checked against
+ * its parameter's type and allowed values and stored straight into the
+ * argument array, with no tree in between. Unknown fields are skipped. Any
+ * mismatch fails with a ToolArgumentException naming the argument.
+ */
+final class ArgumentDecoder {
+    
+    private static final JsonFactory JSON = new JsonFactory();
+    
+    private final String toolName;
+    private final ToolMethod.ToolParam[] params;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    
+    ArgumentDecoder(String toolName, List<ToolMethod.ToolParam> params) {
+        this.toolName = toolName;
+        this.params = params.toArray(new ToolMethod.ToolParam[0]);
+        for (int i = 0; i < this.params.length; i++) {
+            indexes.put(this.params[i].name, i);
+        }
+    }
+    
+    /**
+     * Decode and validate the arguments. A blank string counts as an empty object.
+     */
+    Object[] decode(String arguments) {
+        Object[] args = new Object[params.length];
+        boolean[] present = new boolean[params.length];
+        
+        if (arguments != null && !arguments.isBlank()) {
+            try (JsonParser parser = JSON.createParser(arguments)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw invalid("arguments must be a JSON object");
+                }
+                
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    Integer index = indexes.get(parser.getCurrentName());
+                    JsonToken value = parser.nextToken();
+                    if (index == null) {
+                        parser.skipChildren();
+                    } else if (value != JsonToken.VALUE_NULL) {
+                        args[index] = read(parser, value, params[index]);
+                        present[index] = true;
+                    }
+                }
+                
+                if (parser.nextToken() != null) {
+                    throw invalid("unexpected content after the arguments object");
+                }
+            } catch (JsonProcessingException e) {
+                throw invalid("arguments are not valid JSON (" + e.getOriginalMessage() + ")");
+            } catch (IOException e) {
+                // Reading from a String does not do I/O
+                throw new IllegalStateException(e);
+            }
+        }
+        
+        for (int i = 0; i < params.length; i++) {
+            if (!present[i] && params[i].required) {
+                throw invalid("missing required argument '" + params[i].name + "'");
+            }
+        }
+        return args;
+    }
+    
+    private Object read(JsonParser parser, JsonToken value, ToolMethod.ToolParam param) throws IOException {
+        Class<?> type = param.type;
+        
+        if (type == String.class) {
+            if (value != JsonToken.VALUE_STRING) {
+                throw mismatch(param, "a string", value);
+            }
+            String text = parser.getText();
+            if (!param.allowed.isEmpty() && !param.allowed.contains(text)) {
+                throw invalid("argument '" + param.name + "' must be one of " + param.allowed + ", got \"" + text + "\"");
+            }
+            return text;
+        }
+        
+        if (type == boolean.class || type == Boolean.class) {
+            if (value != JsonToken.VALUE_TRUE && value != JsonToken.VALUE_FALSE) {
+                throw mismatch(param, "a boolean", value);
+            }
+            return value == JsonToken.VALUE_TRUE;
+        }
+        
+        if (type == double.class || type == Double.class || type == float.class || type == Float.class) {
+            if (!value.isNumeric()) {
+                throw mismatch(param, "a number", value);
+            }
+            double number = parser.getDoubleValue();
+            return type == float.class || type == Float.class ? (Object) (float) number : (Object) number;
+        }
+        
+        // int or long
+        if (value != JsonToken.VALUE_NUMBER_INT) {
+            throw mismatch(param, "an integer", value);
+        }
+        JsonParser.NumberType numberType = parser.getNumberType();
+        boolean isInt = type == int.class || type == Integer.class;
+        if (numberType == JsonParser.NumberType.BIG_INTEGER
+                || (isInt && numberType == JsonParser.NumberType.LONG)) {
+            throw invalid("argument '" + param.name + "' is out of range: " + parser.getText());
+        }
+        return isInt ? (Object) parser.getIntValue() : (Object) parser.getLongValue();
+    }
+    
+    private ToolArgumentException mismatch(ToolMethod.ToolParam param, String expected, JsonToken actual) {
+        return invalid("argument '" + param.name + "' must be " + expected + ", got " + describe(actual));
+    }
+    
+    private ToolArgumentException invalid(String problem) {
+        return new ToolArgumentException("Invalid arguments for " + toolName + ": " + problem);
+    }
+    
+    private static String describe(JsonToken token) {
+        switch (token) {
+            case VALUE_STRING:
+                return "a string";
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return "a number";
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return "a boolean";
+            case START_OBJECT:
+                return "an object";
+            case START_ARRAY:
+                return "an array";
+            default:
+                return token.toString();
+        }
+    }
+}
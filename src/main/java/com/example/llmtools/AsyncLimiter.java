@@ -0,0 +1,183 @@
+package com.example.llmtools;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs asynchronous tasks with at most a fixed number in flight. Tasks over
+ * the limit wait in FIFO order and are started, without holding a thread, as
+ * soon as a running task completes. With a bounded queue, tasks that find it
+ * full are rejected.
+ *
+ * Failing or cancelling a returned future (e.g. on a timeout) takes a waiting
+ * task off the queue and cancels a running one.
+ */
+final class AsyncLimiter {
+    
+    private final int limit;
+    private final int maxWaiting;
+    private final BulkheadStats stats;
+    private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+    private int running;
+    private boolean draining;
+    
+    /**
+     * A limiter with an unbounded queue and no stats
+     */
+    AsyncLimiter(int limit) {
+        this(limit, Integer.MAX_VALUE, null);
+    }
+    
+    /**
+     * @param maxWaiting how many tasks may wait for a slot before new ones are rejected
+     * @param stats counters to record admissions, rejections and queue depth in, or null
+     */
+    AsyncLimiter(int limit, int maxWaiting, BulkheadStats stats) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        if (maxWaiting < 0) {
+            throw new IllegalArgumentException("maxWaiting must not be negative: " + maxWaiting);
+        }
+        this.limit = limit;
+        this.maxWaiting = maxWaiting;
+        this.stats = stats;
+    }
+    
+    /**
+     * Start the task now if a slot is free, otherwise once one frees up. The
+     * result fails with RejectedExecutionException if the queue is full.
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long[] queuedAt = new long[1];
+        Runnable start = () -> {
+            if (result.isDone()) {
+                // Given up on while it was being dequeued
+                release();
+                return;
+            }
+            if (stats != null) {
+                stats.recordAdmitted(queuedAt[0] == 0 ? 0 : System.nanoTime() - queuedAt[0]);
+            }
+            
+            CompletableFuture<T> started;
+            try {
+                started = task.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            started.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+            
+            CompletableFuture<T> running = started;
+            result.whenComplete((value, error) -> {
+                if (error != null) {
+                    running.cancel(true);
+                }
+            });
+        };
+        
+        boolean startNow;
+        boolean drainNow = false;
+        synchronized (this) {
+            startNow = running < limit && waiting.isEmpty();
+            if (startNow) {
+                running++;
+            } else if (waiting.size() >= maxWaiting) {
+                if (stats != null) {
+                    stats.recordRejected();
+                }
+                return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Limit of " + limit + " running and " + maxWaiting + " waiting reached"));
+            } else {
+                queuedAt[0] = System.nanoTime();
+                waiting.add(start);
+                recordQueueDepth();
+                
+                // A slot freed up while others were waiting and no thread is handing it out
+                if (running < limit && !draining) {
+                    draining = true;
+                    drainNow = true;
+                }
+            }
+        }
+        
+        if (startNow) {
+            start.run();
+        } else {
+            if (drainNow) {
+                drain();
+            }
+            result.whenComplete((value, error) -> {
+                if (error != null) {
+                    dequeue(start);
+                }
+            });
+        }
+        return result;
+    }
+    
+    private synchronized void dequeue(Runnable start) {
+        if (waiting.remove(start)) {
+            recordQueueDepth();
+        }
+    }
+    
+    /**
+     * Free the finished task's slot and start waiting tasks in it
+     */
+    private void release() {
+        synchronized (this) {
+            running--;
+            if (draining) {
+                // The thread already draining the queue picks the slot up
+                return;
+            }
+            draining = true;
+        }
+        drain();
+    }
+    
+    /**
+     * Start waiting tasks while slots are free. Runs as a loop on one thread at
+     * a time: a task that completes synchronously releases its slot back to
+     * this loop instead of starting the next task on a deeper stack.
+     */
+    private void drain() {
+        while (true) {
+            Runnable next;
+            synchronized (this) {
+                if (running >= limit || waiting.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+                next = waiting.poll();
+                running++;
+                recordQueueDepth();
+            }
+            try {
+                next.run();
+            } catch (RuntimeException | Error e) {
+                synchronized (this) {
+                    draining = false;
+                }
+                throw e;
+            }
+        }
+    }
+    
+    private void recordQueueDepth() {
+        if (stats != null) {
+            stats.recordQueueDepth(waiting.size());
+        }
+    }
+}
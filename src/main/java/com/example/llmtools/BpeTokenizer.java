@@ -0,0 +1,260 @@
+package com.example.llmtools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Byte-level BPE tokenizer over a tiktoken-style vocabulary.
+ *
+ * The vocabulary file has one token per line: the token's bytes in base64, a
+ * space and its rank. Text is split into pieces with the pre-tokenization
+ * pattern; a piece that is itself in the vocabulary is one token, otherwise
+ * its UTF-8 bytes are merged pairwise by lowest rank. Lookups go straight
+ * into an open-addressing table keyed by byte ranges, so encoding a piece
+ * allocates nothing but its merge state, and merge results are cached per
+ * piece. Only counts are produced; token ids are never materialized.
+ */
+public final class BpeTokenizer implements Tokenizer {
+    
+    /**
+     * The pre-tokenization pattern of the cl100k_base encoding
+     */
+    public static final String CL100K_PATTERN =
+        "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*"
+            + "|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+";
+    
+    private static final int MAX_CACHED_PIECES = 16 * 1024;
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+    
+    private final RankTable ranks;
+    private final Pattern pattern;
+    private final ConcurrentHashMap<String, Integer> mergeCache = new ConcurrentHashMap<>();
+    
+    private BpeTokenizer(RankTable ranks, Pattern pattern) {
+        this.ranks = ranks;
+        this.pattern = pattern;
+    }
+    
+    /**
+     * Load a vocabulary with the cl100k_base pre-tokenization pattern
+     */
+    public static BpeTokenizer load(Path vocabulary) throws IOException {
+        return load(vocabulary, CL100K_PATTERN);
+    }
+    
+    public static BpeTokenizer load(Path vocabulary, String pattern) throws IOException {
+        List<byte[]> tokens = new ArrayList<>();
+        List<Integer> tokenRanks = new ArrayList<>();
+        
+        try (BufferedReader reader = Files.newBufferedReader(vocabulary, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                int space = line.indexOf(' ');
+                if (space < 0) {
+                    throw new IOException("Malformed vocabulary line " + lineNumber + " in " + vocabulary);
+                }
+                try {
+                    tokens.add(Base64.getDecoder().decode(line.substring(0, space)));
+                    tokenRanks.add(Integer.parseInt(line.substring(space + 1).trim()));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Malformed vocabulary line " + lineNumber + " in " + vocabulary, e);
+                }
+            }
+        }
+        
+        RankTable ranks = new RankTable(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            ranks.put(tokens.get(i), tokenRanks.get(i));
+        }
+        return new BpeTokenizer(ranks, Pattern.compile(pattern));
+    }
+    
+    @Override
+    public int countTokens(CharSequence text) {
+        Matcher matcher = pattern.matcher(text);
+        int count = 0;
+        while (matcher.find()) {
+            count += countPiece(text, matcher.start(), matcher.end());
+        }
+        return count;
+    }
+    
+    /**
+     * Cuts at a piece boundary, so the prefix may use fewer than maxTokens tokens
+     */
+    @Override
+    public int prefixLength(CharSequence text, int maxTokens) {
+        Matcher matcher = pattern.matcher(text);
+        int count = 0;
+        while (matcher.find()) {
+            count += countPiece(text, matcher.start(), matcher.end());
+            if (count > maxTokens) {
+                return matcher.start();
+            }
+        }
+        return text.length();
+    }
+    
+    private int countPiece(CharSequence text, int start, int end) {
+        byte[] bytes = SCRATCH.get();
+        if (bytes.length < (end - start) * 3) {
+            bytes = new byte[(end - start) * 3];
+            SCRATCH.set(bytes);
+        }
+        int length = utf8(text, start, end, bytes);
+        
+        if (ranks.get(bytes, 0, length) >= 0) {
+            return 1;
+        }
+        
+        String piece = text.subSequence(start, end).toString();
+        Integer cached = mergeCache.get(piece);
+        if (cached != null) {
+            return cached;
+        }
+        
+        int count = merge(bytes, length);
+        if (mergeCache.size() >= MAX_CACHED_PIECES) {
+            mergeCache.clear();
+        }
+        mergeCache.put(piece, count);
+        return count;
+    }
+    
+    /**
+     * Merge the piece's bytes pairwise, lowest rank first, and return the number of parts left
+     */
+    private int merge(byte[] piece, int length) {
+        // Part i spans bounds[i] until bounds[i + 1]; pairRanks[i] is the rank of parts i and i + 1 joined
+        int[] bounds = new int[length + 1];
+        for (int i = 0; i <= length; i++) {
+            bounds[i] = i;
+        }
+        int[] pairRanks = new int[Math.max(length - 1, 0)];
+        for (int i = 0; i < length - 1; i++) {
+            pairRanks[i] = ranks.get(piece, i, 2);
+        }
+        
+        int parts = length;
+        while (parts > 1) {
+            int best = -1;
+            for (int i = 0; i < parts - 1; i++) {
+                if (pairRanks[i] >= 0 && (best < 0 || pairRanks[i] < pairRanks[best])) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            
+            // Join parts best and best + 1
+            System.arraycopy(bounds, best + 2, bounds, best + 1, parts - best - 1);
+            if (parts - best - 3 > 0) {
+                System.arraycopy(pairRanks, best + 2, pairRanks, best + 1, parts - best - 3);
+            }
+            parts--;
+            
+            if (best > 0) {
+                pairRanks[best - 1] = ranks.get(piece, bounds[best - 1], bounds[best + 1] - bounds[best - 1]);
+            }
+            if (best < parts - 1) {
+                pairRanks[best] = ranks.get(piece, bounds[best], bounds[best + 2] - bounds[best]);
+            }
+        }
+        return parts;
+    }
+    
+    /**
+     * Encode chars as UTF-8 into out; unpaired surrogates become '?' as in String.getBytes
+     */
+    private static int utf8(CharSequence text, int start, int end, byte[] out) {
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                out[n++] = (byte) c;
+            } else if (c < 0x800) {
+                out[n++] = (byte) (0xC0 | (c >> 6));
+                out[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    out[n++] = (byte) (0xF0 | (codePoint >> 18));
+                    out[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    out[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    out[n++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    out[n++] = '?';
+                }
+            } else {
+                out[n++] = (byte) (0xE0 | (c >> 12));
+                out[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return n;
+    }
+    
+    /**
+     * Open-addressing map from token bytes to rank, looked up by byte range
+     */
+    private static final class RankTable {
+        private final byte[][] keys;
+        private final int[] values;
+        private final int mask;
+        
+        RankTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+            this.keys = new byte[capacity][];
+            this.values = new int[capacity];
+            this.mask = capacity - 1;
+        }
+        
+        void put(byte[] key, int rank) {
+            int index = hash(key, 0, key.length) & mask;
+            while (keys[index] != null && !Arrays.equals(keys[index], key)) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = rank;
+        }
+        
+        /**
+         * The rank of bytes[offset, offset + length), or -1 if it is not a token
+         */
+        int get(byte[] bytes, int offset, int length) {
+            int index = hash(bytes, offset, length) & mask;
+            byte[] key;
+            while ((key = keys[index]) != null) {
+                if (key.length == length && Arrays.equals(key, 0, length, bytes, offset, offset + length)) {
+                    return values[index];
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+        
+        private static int hash(byte[] bytes, int offset, int length) {
+            int h = 1;
+            for (int i = offset; i < offset + length; i++) {
+                h = 31 * h + bytes[i];
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
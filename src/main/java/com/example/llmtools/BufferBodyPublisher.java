@@ -0,0 +1,93 @@
+package com.example.llmtools;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes a pooled buffer as a request body without copying it.
+ *
+ * Each chunk handed to the HTTP client is a read-only ByteBuffer view over the
+ * pooled array. The client may subscribe more than once (e.g. to resend after
+ * a redirect), so the buffer must only be released once the exchange is over.
+ */
+class BufferBodyPublisher implements HttpRequest.BodyPublisher {
+    
+    private static final int CHUNK_SIZE = 16 * 1024;
+    
+    private final BufferPool.Buffer buffer;
+    
+    BufferBodyPublisher(BufferPool.Buffer buffer) {
+        this.buffer = buffer;
+    }
+    
+    @Override
+    public long contentLength() {
+        return buffer.size();
+    }
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        subscriber.onSubscribe(new ChunkSubscription(subscriber));
+    }
+    
+    /**
+     * Hand the underlying buffer back to its pool
+     */
+    void release() {
+        buffer.release();
+    }
+    
+    private class ChunkSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private int position;
+        
+        ChunkSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+        
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancelled.set(true);
+                subscriber.onError(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            drain();
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled.set(true);
+        }
+        
+        /**
+         * Emit chunks while there is demand; re-entrant calls from onNext just bump wip
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (!cancelled.get() && demand.get() > 0 && position < buffer.size()) {
+                    int length = Math.min(CHUNK_SIZE, buffer.size() - position);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer.array(), position, length).asReadOnlyBuffer();
+                    position += length;
+                    demand.decrementAndGet();
+                    subscriber.onNext(chunk);
+                }
+                if (!cancelled.get() && position >= buffer.size()) {
+                    cancelled.set(true);
+                    subscriber.onComplete();
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+    }
+}
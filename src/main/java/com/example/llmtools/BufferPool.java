@@ -0,0 +1,93 @@
+package com.example.llmtools;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A small pool of growable byte buffers used to serialize request bodies.
+ *
+ * Buffers are handed out as {@link Buffer} output streams and come back via
+ * {@link Buffer#release()}. Buffers that grew beyond the retain limit are
+ * dropped instead of pooled so one huge request does not pin memory forever.
+ */
+class BufferPool {
+    
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+    
+    private final BlockingQueue<Buffer> free;
+    private final int maxRetainedCapacity;
+    
+    BufferPool(int maxPooled, int maxRetainedCapacity) {
+        this.free = new ArrayBlockingQueue<>(maxPooled);
+        this.maxRetainedCapacity = maxRetainedCapacity;
+    }
+    
+    Buffer acquire() {
+        Buffer buffer = free.poll();
+        if (buffer == null) {
+            return new Buffer(this);
+        }
+        buffer.released = false;
+        return buffer;
+    }
+    
+    private void recycle(Buffer buffer) {
+        buffer.count = 0;
+        if (buffer.bytes.length <= maxRetainedCapacity) {
+            free.offer(buffer);
+        }
+    }
+    
+    /**
+     * Growable byte array output stream whose contents can be read in place
+     */
+    static class Buffer extends OutputStream {
+        private final BufferPool pool;
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int count;
+        private boolean released;
+        
+        private Buffer(BufferPool pool) {
+            this.pool = pool;
+        }
+        
+        byte[] array() {
+            return bytes;
+        }
+        
+        int size() {
+            return count;
+        }
+        
+        @Override
+        public void write(int b) {
+            ensureCapacity(count + 1);
+            bytes[count++] = (byte) b;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(count + len);
+            System.arraycopy(b, off, bytes, count, len);
+            count += len;
+        }
+        
+        /**
+         * Return the buffer to its pool; safe to call more than once
+         */
+        synchronized void release() {
+            if (!released) {
+                released = true;
+                pool.recycle(this);
+            }
+        }
+        
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+    }
+}
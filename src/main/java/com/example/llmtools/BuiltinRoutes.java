@@ -0,0 +1,85 @@
+package com.example.llmtools;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The fast-path routes for the built-in tools
+ */
+final class BuiltinRoutes {
+    
+    private static final String NUMBER = "(-?\\d+(?:\\.\\d+)?)";
+    
+    private static final Pattern ARITHMETIC = Pattern.compile(
+        "(?i)^(calculate|compute|what is|what's)?\\s*" + NUMBER
+            + "\\s*(plus|\\+|minus|-|times|multiplied by|x|\\*|divided by|over|/)\\s*" + NUMBER + "\\s*[?.!]?$");
+    
+    /**
+     * A name with no quotes or backslashes, so it can be put into the argument JSON as is
+     */
+    private static final Pattern CHARACTER = Pattern.compile(
+        "(?i)^(?:who is|who was|tell me about|look up|search for)\\s+(?:the\\s+)?"
+            + "(?:star wars character\\s+)?([a-z][a-z0-9 .'-]*?)(\\s+(?:in|from)\\s+star wars)?\\s*[?.!]?$");
+    
+    static final FastPathRoute CALCULATOR = BuiltinRoutes::matchArithmetic;
+    
+    static final FastPathRoute STAR_WARS_CHARACTER = BuiltinRoutes::matchCharacter;
+    
+    private BuiltinRoutes() {
+    }
+    
+    private static FastPathRoute.Match matchArithmetic(String userMessage) {
+        Matcher matcher = ARITHMETIC.matcher(userMessage.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        
+        String operation = operation(matcher.group(3).toLowerCase(Locale.ROOT));
+        String arguments = "{\"operation\":\"" + operation + "\",\"a\":" + matcher.group(2) + ",\"b\":" + matcher.group(4) + "}";
+        
+        // A bare "2 x 3" is more likely to be something other than arithmetic than "calculate 2 x 3",
+        // so it stays under the default threshold of 0.9
+        double confidence = matcher.group(1) != null ? 0.99 : 0.85;
+        String expression = matcher.group(2) + " " + matcher.group(3) + " " + matcher.group(4);
+        
+        return FastPathRoute.Match.of("calculate", arguments, confidence, result -> {
+            // calculate answers "a operation b = result" or an error the LLM explains better
+            int equals = result.lastIndexOf(" = ");
+            return equals < 0 || result.startsWith("Error") ? null : expression + " = " + result.substring(equals + 3);
+        });
+    }
+    
+    private static String operation(String word) {
+        switch (word) {
+            case "plus":
+            case "+":
+                return "add";
+            case "minus":
+            case "-":
+                return "subtract";
+            case "times":
+            case "multiplied by":
+            case "x":
+            case "*":
+                return "multiply";
+            default:
+                return "divide";
+        }
+    }
+    
+    private static FastPathRoute.Match matchCharacter(String userMessage) {
+        String message = userMessage.trim();
+        Matcher matcher = CHARACTER.matcher(message);
+        if (!matcher.matches()) {
+            return null;
+        }
+        
+        // Without a mention of Star Wars, "who is X" could be about anyone
+        boolean starWars = matcher.group(2) != null || message.toLowerCase(Locale.ROOT).contains("star wars character");
+        String name = matcher.group(1).trim();
+        
+        return FastPathRoute.Match.of("search_starwars_character", "{\"name\":\"" + name + "\"}", starWars ? 0.95 : 0.6,
+            result -> result.startsWith("Character: ") ? "Here is what SWAPI has on " + name + ":\n" + result : null);
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.llmtools;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The tools every LLMToolCaller offers: a Star Wars character search backed by
+ * SWAPI and a calculator
+ */
+class BuiltinTools {
+    
+    static final String SEARCH_STARWARS_CHARACTER = "search_starwars_character";
+    
+    private static final String SWAPI_URL = "https://swapi.dev/api/people/?search=";
+    
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * @param requestTimeout limit on each SWAPI request, at most the search tool's deadline
+     */
+    BuiltinTools(HttpClient httpClient, Duration requestTimeout, ObjectMapper objectMapper) {
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Search for a Star Wars character using the SWAPI (Star Wars API)
+     * This calls a real public API - no API key required!
+     */
+    @Tool(
+        name = SEARCH_STARWARS_CHARACTER,
+        description = "Search for a Star Wars character using the SWAPI (Star Wars API). Returns character details like height, mass, hair color, eye color, birth year, and gender.",
+        maxConcurrent = 4,
+        maxQueued = 32,
+        idempotent = true
+    )
+    CompletableFuture<ToolResult> searchStarWarsCharacter(
+        @Param(name = "name", description = "The name of the Star Wars character to search for (e.g., 'Luke Skywalker', 'Darth Vader', 'Leia')")
+        String name
+    ) {
+        System.out.println("\n[Executing tool: search_starwars_character]");
+        System.out.println("  Searching for: " + name);
+        
+        // Build the API URL
+        String searchUrl = SWAPI_URL + name.replace(" ", "%20");
+        
+        // Make the HTTP request
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+            .uri(URI.create(searchUrl))
+            .header("Accept", "application/json")
+            .GET();
+        if (requestTimeout != null) {
+            request.timeout(requestTimeout);
+        }
+        
+        // Pick the first match out of the JSON while it downloads; error bodies are discarded
+        HttpResponse.BodyHandler<CharacterResult> handler = responseInfo -> responseInfo.statusCode() == 200
+            ? new JsonBodySubscriber<>(objectMapper, BuiltinTools::readFirstCharacter, bytes -> { })
+            : HttpResponse.BodySubscribers.replacing(null);
+        
+        CompletableFuture<HttpResponse<CharacterResult>> exchange = httpClient.sendAsync(request.build(), handler);
+        CompletableFuture<ToolResult> result = exchange
+            .thenApply(response -> {
+                if (response.statusCode() != 200) {
+                    return ToolResult.of("Error: API returned status " + response.statusCode());
+                }
+                if (response.body() == null) {
+                    return sink -> sink.append("No character found with name: ").append(name);
+                }
+                return response.body();
+            });
+        
+        // Cancelling the exchange aborts the request and releases its connection on JDK 16+;
+        // on older runtimes the request timeout is what stops it
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Read the first entry of a SWAPI search response's results array, or null
+     * when there is none. Everything else is skipped without building a tree.
+     */
+    private static CharacterResult readFirstCharacter(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        
+        CharacterResult character = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            
+            if (field.equals("results") && value == JsonToken.START_ARRAY) {
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (character == null && token == JsonToken.START_OBJECT) {
+                        character = readCharacter(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return character;
+    }
+    
+    private static CharacterResult readCharacter(JsonParser parser) throws IOException {
+        CharacterResult character = new CharacterResult();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "name":
+                    character.name = parser.getValueAsString();
+                    break;
+                case "height":
+                    character.height = parser.getValueAsString();
+                    break;
+                case "mass":
+                    character.mass = parser.getValueAsString();
+                    break;
+                case "hair_color":
+                    character.hairColor = parser.getValueAsString();
+                    break;
+                case "eye_color":
+                    character.eyeColor = parser.getValueAsString();
+                    break;
+                case "birth_year":
+                    character.birthYear = parser.getValueAsString();
+                    break;
+                case "gender":
+                    character.gender = parser.getValueAsString();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return character;
+    }
+    
+    @Tool(name = "calculate", description = "Perform a mathematical calculation")
+    String calculate(
+        @Param(name = "operation", description = "The mathematical operation to perform",
+            allowed = { "add", "subtract", "multiply", "divide" })
+        String operation,
+        @Param(name = "a", description = "The first number") double a,
+        @Param(name = "b", description = "The second number") double b
+    ) {
+        System.out.println("\n[Executing tool: calculate]");
+        System.out.println("  Operation: " + operation);
+        System.out.println("  A: " + a + ", B: " + b);
+        
+        double result;
+        switch (operation) {
+            case "add":
+                result = a + b;
+                break;
+            case "subtract":
+                result = a - b;
+                break;
+            case "multiply":
+                result = a * b;
+                break;
+            case "divide":
+                if (b == 0) return "Error: Division by zero";
+                result = a / b;
+                break;
+            default:
+                return "Error: Unknown operation: " + operation;
+        }
+        
+        return String.format("%.2f %s %.2f = %.2f", a, operation, b, result);
+    }
+    
+    /**
+     * The fields of one SWAPI character, written as a short description
+     * straight into the follow-up request
+     */
+    private static final class CharacterResult implements ToolResult {
+        String name;
+        String height;
+        String mass;
+        String hairColor;
+        String eyeColor;
+        String birthYear;
+        String gender;
+        
+        @Override
+        public void writeTo(ToolResultSink sink) {
+            sink.append("Character: ").append(name)
+                .append("\nHeight: ").append(height).append(" cm")
+                .append("\nMass: ").append(mass).append(" kg")
+                .append("\nHair Color: ").append(hairColor)
+                .append("\nEye Color: ").append(eyeColor)
+                .append("\nBirth Year: ").append(birthYear)
+                .append("\nGender: ").append(gender);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.llmtools;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one tool's bulkhead
+ */
+public class BulkheadStats {
+    
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queuedNanos = new LongAdder();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    
+    void recordAdmitted(long waitNanos) {
+        admitted.increment();
+        if (waitNanos > 0) {
+            queued.increment();
+            queuedNanos.add(waitNanos);
+        }
+    }
+    
+    void recordRejected() {
+        rejected.increment();
+    }
+    
+    void recordQueueDepth(int depth) {
+        queueDepth.set(depth);
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+    
+    public long admitted() {
+        return admitted.sum();
+    }
+    
+    /**
+     * Admitted invocations that had to wait for a slot
+     */
+    public long queued() {
+        return queued.sum();
+    }
+    
+    /**
+     * Invocations turned away because the queue was full
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+    
+    /**
+     * Total time admitted invocations spent waiting
+     */
+    public long queuedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(queuedNanos.sum());
+    }
+    
+    /**
+     * Invocations waiting for a slot right now
+     */
+    public int queueDepth() {
+        return queueDepth.get();
+    }
+    
+    public int maxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "BulkheadStats{admitted=" + admitted() + ", queued=" + queued() + ", rejected=" + rejected()
+            + ", queuedMillis=" + queuedMillis() + ", queueDepth=" + queueDepth()
+            + ", maxQueueDepth=" + maxQueueDepth() + "}";
+    }
+}
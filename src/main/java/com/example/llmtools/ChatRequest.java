@@ -0,0 +1,118 @@
+package com.example.llmtools;
+
+import java.util.List;
+import java.util.Map;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+/**
+ * A chat completion request. Instances are immutable; the with* methods
+ * return a copy that shares the unchanged parts, including the pre-encoded
+ * tool definitions and the already encoded messages of the conversation.
+ */
+@JsonPropertyOrder({ "model", "messages", "tools", "tool_choice", "stream", "stream_options", "max_tokens" })
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class ChatRequest {
+    
+    private static final Map<String, Object> INCLUDE_USAGE = Map.of("include_usage", true);
+    
+    private final String model;
+    private final Conversation conversation;
+    private final RawValue tools;
+    private final String toolChoice;
+    private final Boolean stream;
+    private final Integer maxTokens;
+    
+    public ChatRequest(String model, Conversation conversation) {
+        this(model, conversation, null, null, null, null);
+    }
+    
+    private ChatRequest(
+        String model,
+        Conversation conversation,
+        RawValue tools,
+        String toolChoice,
+        Boolean stream,
+        Integer maxTokens
+    ) {
+        this.model = model;
+        this.conversation = conversation;
+        this.tools = tools;
+        this.toolChoice = toolChoice;
+        this.stream = stream;
+        this.maxTokens = maxTokens;
+    }
+    
+    /**
+     * Offer the given tools, already serialized as a JSON array
+     */
+    public ChatRequest withTools(RawValue tools, String toolChoice) {
+        return new ChatRequest(model, conversation, tools, toolChoice, stream, maxTokens);
+    }
+    
+    public ChatRequest withoutTools() {
+        return new ChatRequest(model, conversation, null, null, stream, maxTokens);
+    }
+    
+    public ChatRequest withConversation(Conversation conversation) {
+        return new ChatRequest(model, conversation, tools, toolChoice, stream, maxTokens);
+    }
+    
+    public ChatRequest withStream(boolean stream) {
+        return new ChatRequest(model, conversation, tools, toolChoice, stream ? Boolean.TRUE : null, maxTokens);
+    }
+    
+    public ChatRequest withMaxTokens(Integer maxTokens) {
+        return new ChatRequest(model, conversation, tools, toolChoice, stream, maxTokens);
+    }
+    
+    @JsonProperty("model")
+    public String model() {
+        return model;
+    }
+    
+    @JsonProperty("messages")
+    public Conversation conversation() {
+        return conversation;
+    }
+    
+    public List<Message> messages() {
+        return conversation.messages();
+    }
+    
+    @JsonProperty("tools")
+    public RawValue tools() {
+        return tools;
+    }
+    
+    @JsonProperty("tool_choice")
+    public String toolChoice() {
+        return toolChoice;
+    }
+    
+    /**
+     * True for a streamed request, null (omitted) otherwise
+     */
+    @JsonProperty("stream")
+    public Boolean stream() {
+        return stream;
+    }
+    
+    /**
+     * Asks a streamed response to end with a usage chunk; null (omitted) otherwise
+     */
+    @JsonProperty("stream_options")
+    public Map<String, Object> streamOptions() {
+        return stream != null ? INCLUDE_USAGE : null;
+    }
+    
+    /**
+     * The completion token cap, or null to use the server default
+     */
+    @JsonProperty("max_tokens")
+    public Integer maxTokens() {
+        return maxTokens;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.llmtools;
+
+import java.util.List;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+/**
+ * The parts of a chat completion response this client uses: the first
+ * choice's message content and tool calls, its finish reason and usage.
+ * Everything else in the response is skipped while decoding.
+ */
+@JsonDeserialize(using = ChatResponseDecoder.Deserializer.class)
+public final class ChatResponse {
+    
+    private final boolean hasMessage;
+    private final String content;
+    private final List<ToolCall> toolCalls;
+    private final String finishReason;
+    private final Usage usage;
+    
+    public ChatResponse(boolean hasMessage, String content, List<ToolCall> toolCalls, String finishReason, Usage usage) {
+        this.hasMessage = hasMessage;
+        this.content = content;
+        this.toolCalls = List.copyOf(toolCalls);
+        this.finishReason = finishReason;
+        this.usage = usage;
+    }
+    
+    /**
+     * False when the response had no choices
+     */
+    public boolean hasMessage() {
+        return hasMessage;
+    }
+    
+    /**
+     * The message text, or null when the model only returned tool calls
+     */
+    public String content() {
+        return content;
+    }
+    
+    public List<ToolCall> toolCalls() {
+        return toolCalls;
+    }
+    
+    public boolean hasToolCalls() {
+        return !toolCalls.isEmpty();
+    }
+    
+    public String finishReason() {
+        return finishReason;
+    }
+    
+    /**
+     * Token usage, or null when the server did not report it
+     */
+    public Usage usage() {
+        return usage;
+    }
+}
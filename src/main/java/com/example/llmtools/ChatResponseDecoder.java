@@ -0,0 +1,194 @@
+package com.example.llmtools;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Decodes a chat completion response with a streaming parser.
+ *
+ * Only choices[0].message.content, choices[0].message.tool_calls,
+ * choices[0].finish_reason and usage are bound; every other value is skipped
+ * with skipChildren() so no tree is built for it. Registered on ChatResponse
+ * through {@link Deserializer}, so an ObjectReader for ChatResponse binds with
+ * this decoder directly.
+ */
+final class ChatResponseDecoder {
+    
+    private ChatResponseDecoder() {
+    }
+    
+    /**
+     * Decode from a parser positioned either before the response or on its START_OBJECT
+     */
+    static ChatResponse decode(JsonParser parser) throws IOException {
+        JsonToken first = parser.currentToken() != null ? parser.currentToken() : parser.nextToken();
+        expect(parser, first, JsonToken.START_OBJECT);
+        
+        ChoiceFields choice = null;
+        Usage usage = null;
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            
+            if (field.equals("choices") && value == JsonToken.START_ARRAY) {
+                choice = readChoices(parser);
+            } else if (field.equals("usage") && value == JsonToken.START_OBJECT) {
+                usage = readUsage(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        
+        if (choice == null) {
+            return new ChatResponse(false, null, List.of(), null, usage);
+        }
+        return new ChatResponse(true, choice.content, choice.toolCalls, choice.finishReason, usage);
+    }
+    
+    /**
+     * Read the first choice and skip the rest of the array
+     */
+    private static ChoiceFields readChoices(JsonParser parser) throws IOException {
+        ChoiceFields first = null;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (first == null && token == JsonToken.START_OBJECT) {
+                first = readChoice(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return first;
+    }
+    
+    private static ChoiceFields readChoice(JsonParser parser) throws IOException {
+        ChoiceFields choice = new ChoiceFields();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            
+            if (field.equals("message") && value == JsonToken.START_OBJECT) {
+                readMessage(parser, choice);
+            } else if (field.equals("finish_reason")) {
+                choice.finishReason = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return choice;
+    }
+    
+    private static void readMessage(JsonParser parser, ChoiceFields choice) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            
+            if (field.equals("content")) {
+                choice.content = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                parser.skipChildren();
+            } else if (field.equals("tool_calls") && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    choice.toolCalls.add(readToolCall(parser));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+    
+    private static ToolCall readToolCall(JsonParser parser) throws IOException {
+        String id = null;
+        String name = null;
+        String arguments = null;
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            
+            if (field.equals("id")) {
+                id = parser.getValueAsString();
+            } else if (field.equals("function") && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String functionField = parser.getCurrentName();
+                    parser.nextToken();
+                    if (functionField.equals("name")) {
+                        name = parser.getValueAsString();
+                    } else if (functionField.equals("arguments")) {
+                        // Normally a JSON-encoded string, but some servers send the object itself
+                        arguments = parser.currentToken().isStructStart()
+                            ? parser.readValueAsTree().toString()
+                            : parser.getValueAsString();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        
+        return new ToolCall(id, name, arguments);
+    }
+    
+    private static Usage readUsage(JsonParser parser) throws IOException {
+        int promptTokens = 0;
+        int completionTokens = 0;
+        int totalTokens = 0;
+        
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "prompt_tokens":
+                    promptTokens = parser.getValueAsInt();
+                    break;
+                case "completion_tokens":
+                    completionTokens = parser.getValueAsInt();
+                    break;
+                case "total_tokens":
+                    totalTokens = parser.getValueAsInt();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        
+        return new Usage(promptTokens, completionTokens, totalTokens);
+    }
+    
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+    
+    static final class Deserializer extends StdDeserializer<ChatResponse> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        Deserializer() {
+            super(ChatResponse.class);
+        }
+        
+        @Override
+        public ChatResponse deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return decode(parser);
+        }
+    }
+    
+    /**
+     * Mutable holder while a choice is being read
+     */
+    private static class ChoiceFields {
+        String content;
+        final List<ToolCall> toolCalls = new ArrayList<>();
+        String finishReason;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.llmtools;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Byte counters for the LLM endpoint, before and after content coding.
+ *
+ * Request sizes compare the serialized JSON with what was put on the wire;
+ * response sizes compare the bytes received with the bytes fed to the parser.
+ */
+public class CompressionStats {
+    
+    private final LongAdder requestBytesRaw = new LongAdder();
+    private final LongAdder requestBytesSent = new LongAdder();
+    private final LongAdder responseBytesReceived = new LongAdder();
+    private final LongAdder responseBytesDecoded = new LongAdder();
+    
+    void recordRequest(long rawBytes, long sentBytes) {
+        requestBytesRaw.add(rawBytes);
+        requestBytesSent.add(sentBytes);
+    }
+    
+    void recordResponse(long receivedBytes, long decodedBytes) {
+        responseBytesReceived.add(receivedBytes);
+        responseBytesDecoded.add(decodedBytes);
+    }
+    
+    public long requestBytesRaw() {
+        return requestBytesRaw.sum();
+    }
+    
+    public long requestBytesSent() {
+        return requestBytesSent.sum();
+    }
+    
+    public long responseBytesReceived() {
+        return responseBytesReceived.sum();
+    }
+    
+    public long responseBytesDecoded() {
+        return responseBytesDecoded.sum();
+    }
+    
+    /**
+     * Total bytes kept off the wire in both directions
+     */
+    public long bytesSaved() {
+        return (requestBytesRaw() - requestBytesSent()) + (responseBytesDecoded() - responseBytesReceived());
+    }
+    
+    @Override
+    public String toString() {
+        return "CompressionStats{requests " + requestBytesRaw() + " -> " + requestBytesSent()
+            + " bytes, responses " + responseBytesReceived() + " -> " + responseBytesDecoded()
+            + " bytes, saved " + bytesSaved() + "}";
+    }
+}
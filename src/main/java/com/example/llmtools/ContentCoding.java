@@ -0,0 +1,94 @@
+package com.example.llmtools;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * HTTP content coding helpers (gzip / deflate).
+ *
+ * java.net.http.HttpClient neither compresses requests nor decompresses
+ * responses, so the LLM transport does both itself. Responses are decoded as
+ * a stream and fed straight to the JSON parser.
+ */
+final class ContentCoding {
+    
+    /** Value for the Accept-Encoding header */
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+    
+    private ContentCoding() {
+    }
+    
+    static void gzip(byte[] data, int offset, int length, OutputStream out) throws IOException {
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            gzip.write(data, offset, length);
+        }
+    }
+    
+    /**
+     * Wrap a response body in the decoder matching its Content-Encoding header
+     */
+    static InputStream decode(String contentEncoding, InputStream in) throws IOException {
+        if (contentEncoding == null) {
+            return in;
+        }
+        switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "":
+            case "identity":
+                return in;
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(in, 8192);
+            case "deflate":
+                // HTTP "deflate" is the zlib format, which is what Inflater expects by default
+                return new InflaterInputStream(in);
+            default:
+                throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+        }
+    }
+    
+    /**
+     * Counts the bytes read through it, to measure encoded vs decoded sizes
+     */
+    static class CountingInputStream extends FilterInputStream {
+        private long count;
+        
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+        
+        long count() {
+            return count;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+        
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
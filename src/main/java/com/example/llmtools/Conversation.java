@@ -0,0 +1,247 @@
+package com.example.llmtools;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * An append-only list of chat messages that keeps each message's encoded JSON.
+ *
+ * A message is serialized once, when it is appended, straight to UTF-8 bytes,
+ * and only those bytes are kept next to it. Appending returns a new conversation that shares every
+ * earlier message with the one it was appended to, so building the next
+ * request costs only the new messages. Writing the conversation as a request's
+ * messages array copies the kept bytes. Prompt tokens are counted the same
+ * way, once per appended message.
+ */
+@JsonSerialize(using = Conversation.Serializer.class)
+public final class Conversation {
+    
+    private final ObjectWriter messageWriter;
+    private final Tokenizer tokenizer;
+    private final Entry last;
+    private final int size;
+    private final int tokenCount;
+    
+    private Conversation(ObjectWriter messageWriter, Tokenizer tokenizer, Entry last, int size, int tokenCount) {
+        this.messageWriter = messageWriter;
+        this.tokenizer = tokenizer;
+        this.last = last;
+        this.size = size;
+        this.tokenCount = tokenCount;
+    }
+    
+    /**
+     * An empty conversation whose messages are encoded with the given writer
+     * and counted with the given tokenizer
+     */
+    static Conversation empty(ObjectWriter messageWriter, Tokenizer tokenizer) {
+        return new Conversation(messageWriter, tokenizer, null, 0, 0);
+    }
+    
+    public Conversation append(Message message) {
+        // Encode to UTF-8 now, with no intermediate String, so every later request reuses the bytes
+        EncodedJson encoded;
+        try {
+            encoded = new EncodedJson(messageWriter.writeValueAsBytes(message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Message is not serializable: " + message, e);
+        }
+        int tokens = message.countTokens(tokenizer);
+        return new Conversation(messageWriter, tokenizer, new Entry(message, encoded, last), size + 1, tokenCount + tokens);
+    }
+    
+    public Conversation append(List<Message> messages) {
+        Conversation conversation = this;
+        for (Message message : messages) {
+            conversation = conversation.append(message);
+        }
+        return conversation;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Prompt tokens of all messages, including the per-message overhead
+     */
+    public int tokenCount() {
+        return tokenCount;
+    }
+    
+    /**
+     * The messages, oldest first
+     */
+    public List<Message> messages() {
+        List<Message> messages = new ArrayList<>(size);
+        for (Entry entry = last; entry != null; entry = entry.previous) {
+            messages.add(entry.message);
+        }
+        Collections.reverse(messages);
+        return messages;
+    }
+    
+    /**
+     * Writes the kept encodings as a JSON array, oldest first
+     */
+    static final class Serializer extends StdSerializer<Conversation> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        Serializer() {
+            super(Conversation.class);
+        }
+        
+        @Override
+        public void serialize(Conversation conversation, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            Entry[] entries = new Entry[conversation.size];
+            int i = entries.length;
+            for (Entry entry = conversation.last; entry != null; entry = entry.previous) {
+                entries[--i] = entry;
+            }
+            
+            gen.writeStartArray(conversation, entries.length);
+            for (Entry entry : entries) {
+                gen.writeRawValue(entry.encoded);
+            }
+            gen.writeEndArray();
+        }
+    }
+    
+    /**
+     * A message's JSON as UTF-8 bytes, written raw. Byte-based generators (the
+     * request body) copy the bytes; a char-based generator decodes them first.
+     */
+    private static final class EncodedJson implements SerializableString {
+        private final byte[] utf8;
+        
+        EncodedJson(byte[] utf8) {
+            this.utf8 = utf8;
+        }
+        
+        @Override
+        public String getValue() {
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+        
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+        
+        @Override
+        public char[] asQuotedChars() {
+            return JsonStringEncoder.getInstance().quoteAsString(getValue());
+        }
+        
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return utf8;
+        }
+        
+        @Override
+        public byte[] asQuotedUTF8() {
+            return JsonStringEncoder.getInstance().quoteAsUTF8(getValue());
+        }
+        
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            return copy(asQuotedUTF8(), buffer, offset);
+        }
+        
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            char[] quoted = asQuotedChars();
+            if (offset + quoted.length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(quoted, 0, buffer, offset, quoted.length);
+            return quoted.length;
+        }
+        
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            return copy(utf8, buffer, offset);
+        }
+        
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            String value = getValue();
+            if (offset + value.length() > buffer.length) {
+                return -1;
+            }
+            value.getChars(0, value.length(), buffer, offset);
+            return value.length();
+        }
+        
+        @Override
+        public int writeQuotedUTF8(OutputStream out) throws IOException {
+            byte[] quoted = asQuotedUTF8();
+            out.write(quoted);
+            return quoted.length;
+        }
+        
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(utf8);
+            return utf8.length;
+        }
+        
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) {
+            return put(asQuotedUTF8(), buffer);
+        }
+        
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            return put(utf8, buffer);
+        }
+        
+        @Override
+        public String toString() {
+            return getValue();
+        }
+        
+        private static int copy(byte[] bytes, byte[] buffer, int offset) {
+            if (offset + bytes.length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+            return bytes.length;
+        }
+        
+        private static int put(byte[] bytes, ByteBuffer buffer) {
+            if (bytes.length > buffer.remaining()) {
+                return -1;
+            }
+            buffer.put(bytes);
+            return bytes.length;
+        }
+    }
+    
+    private static final class Entry {
+        final Message message;
+        final EncodedJson encoded;
+        final Entry previous;
+        
+        Entry(Message message, EncodedJson encoded, Entry previous) {
+            this.message = message;
+            this.encoded = encoded;
+            this.previous = previous;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.llmtools;
+
+/**
+ * Estimates one token per four characters of text
+ */
+final class EstimatingTokenizer implements Tokenizer {
+    
+    static final EstimatingTokenizer INSTANCE = new EstimatingTokenizer();
+    
+    private static final int CHARS_PER_TOKEN = 4;
+    
+    private EstimatingTokenizer() {
+    }
+    
+    @Override
+    public int countTokens(CharSequence text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+    
+    @Override
+    public int prefixLength(CharSequence text, int maxTokens) {
+        return (int) Math.min(text.length(), (long) maxTokens * CHARS_PER_TOKEN);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.llmtools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which user messages are answered locally, without the LLM.
+ *
+ * Each route proposes a tool call with a confidence; the most confident match
+ * that reaches its route's threshold is executed and its result rendered as
+ * the reply. Anything else, including a tool error or a result the route
+ * declines to render, goes through the LLM as usual.
+ */
+public final class FastPathPolicy {
+    
+    private final List<FastPathRoute> routes;
+    private final Map<FastPathRoute, Double> minConfidence;
+    
+    private FastPathPolicy(Builder builder) {
+        this.routes = Collections.unmodifiableList(new ArrayList<>(builder.routes));
+        this.minConfidence = new IdentityHashMap<>(builder.routeConfidence);
+        for (FastPathRoute route : routes) {
+            this.minConfidence.putIfAbsent(route, builder.minConfidence);
+        }
+    }
+    
+    /**
+     * The calculator and Star Wars character routes, each at the default threshold of 0.9
+     */
+    public static FastPathPolicy defaults() {
+        return builder()
+            .route(FastPathRoute.calculator())
+            .route(FastPathRoute.starWarsCharacter())
+            .build();
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    public List<FastPathRoute> routes() {
+        return routes;
+    }
+    
+    /**
+     * The confidence a match from this route needs to be answered locally
+     */
+    public double minConfidence(FastPathRoute route) {
+        return minConfidence.getOrDefault(route, 1.0);
+    }
+    
+    public static class Builder {
+        private final List<FastPathRoute> routes = new ArrayList<>();
+        private final Map<FastPathRoute, Double> routeConfidence = new IdentityHashMap<>();
+        private double minConfidence = 0.9;
+        
+        private Builder() {
+        }
+        
+        /**
+         * Add a route that uses the default threshold
+         */
+        public Builder route(FastPathRoute route) {
+            routes.add(route);
+            return this;
+        }
+        
+        /**
+         * Add a route with its own threshold
+         */
+        public Builder route(FastPathRoute route, double minConfidence) {
+            routeConfidence.put(route, checkConfidence(minConfidence));
+            return route(route);
+        }
+        
+        /**
+         * Threshold for routes added without one (0.9 by default)
+         */
+        public Builder minConfidence(double minConfidence) {
+            this.minConfidence = checkConfidence(minConfidence);
+            return this;
+        }
+        
+        private static double checkConfidence(double confidence) {
+            if (!(confidence >= 0 && confidence <= 1)) {
+                throw new IllegalArgumentException("minConfidence must be between 0 and 1: " + confidence);
+            }
+            return confidence;
+        }
+        
+        public FastPathPolicy build() {
+            return new FastPathPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.llmtools;
+
+import java.util.function.Function;
+
+/**
+ * Recognizes user messages that map directly onto one tool call, so the
+ * caller can answer them locally instead of asking the LLM. A route must be
+ * deterministic and cheap: it runs before every conversation.
+ */
+@FunctionalInterface
+public interface FastPathRoute {
+    
+    /**
+     * The tool call this message asks for, or null if the route does not apply
+     */
+    Match match(String userMessage);
+    
+    /**
+     * Arithmetic on two numbers, e.g. "Calculate 150 divided by 5" or "what is 2 + 3?", answered by calculate
+     */
+    static FastPathRoute calculator() {
+        return BuiltinRoutes.CALCULATOR;
+    }
+    
+    /**
+     * Star Wars character lookups, e.g. "Who is Luke Skywalker in Star Wars?", answered by
+     * search_starwars_character. Messages that do not mention Star Wars match with low confidence.
+     */
+    static FastPathRoute starWarsCharacter() {
+        return BuiltinRoutes.STAR_WARS_CHARACTER;
+    }
+    
+    /**
+     * A recognized tool call, how sure the route is about it, and how to turn
+     * the tool's result into the reply
+     */
+    final class Match {
+        
+        private final String toolName;
+        private final String arguments;
+        private final double confidence;
+        private final Function<String, String> reply;
+        
+        private Match(String toolName, String arguments, double confidence, Function<String, String> reply) {
+            this.toolName = toolName;
+            this.arguments = arguments;
+            this.confidence = confidence;
+            this.reply = reply;
+        }
+        
+        /**
+         * @param arguments the argument JSON, as the model would send it
+         * @param confidence between 0 and 1
+         * @param reply renders the tool result as the reply, or returns null to hand the message to the LLM
+         */
+        public static Match of(String toolName, String arguments, double confidence, Function<String, String> reply) {
+            if (!(confidence >= 0 && confidence <= 1)) {
+                throw new IllegalArgumentException("confidence must be between 0 and 1: " + confidence);
+            }
+            return new Match(toolName, arguments, confidence, reply);
+        }
+        
+        public String toolName() {
+            return toolName;
+        }
+        
+        public String arguments() {
+            return arguments;
+        }
+        
+        public double confidence() {
+            return confidence;
+        }
+        
+        /**
+         * The reply for this tool result, or null to fall back to the LLM
+         */
+        public String reply(String toolResult) {
+            return reply.apply(toolResult);
+        }
+        
+        @Override
+        public String toString() {
+            return "Match{toolName=" + toolName + ", arguments=" + arguments + ", confidence=" + confidence + "}";
+        }
+    }
+}
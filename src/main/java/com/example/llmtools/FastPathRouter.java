@@ -0,0 +1,54 @@
+package com.example.llmtools;
+
+/**
+ * Picks the tool call, if any, that a user message is answered with locally
+ */
+final class FastPathRouter {
+    
+    private final FastPathPolicy policy;
+    private final ToolRegistry toolRegistry;
+    private final FastPathStats stats;
+    
+    FastPathRouter(FastPathPolicy policy, ToolRegistry toolRegistry, FastPathStats stats) {
+        this.policy = policy;
+        this.toolRegistry = toolRegistry;
+        this.stats = stats;
+    }
+    
+    /**
+     * The most confident match that reaches its route's threshold and names a
+     * registered tool, or null to send the message to the LLM
+     */
+    FastPathRoute.Match route(String userMessage) {
+        FastPathRoute.Match best = null;
+        boolean matched = false;
+        
+        for (FastPathRoute route : policy.routes()) {
+            FastPathRoute.Match match;
+            try {
+                match = route.match(userMessage);
+            } catch (RuntimeException e) {
+                // A broken route only costs the fast path
+                continue;
+            }
+            if (match == null || toolRegistry.find(match.toolName()) == null) {
+                continue;
+            }
+            
+            matched = true;
+            if (match.confidence() >= policy.minConfidence(route)
+                    && (best == null || match.confidence() > best.confidence())) {
+                best = match;
+            }
+        }
+        
+        if (best == null) {
+            if (matched) {
+                stats.recordBelowThreshold();
+            } else {
+                stats.recordUnmatched();
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.llmtools;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the local fast path
+ */
+public class FastPathStats {
+    
+    private final LongAdder answered = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder belowThreshold = new LongAdder();
+    private final LongAdder unmatched = new LongAdder();
+    
+    void recordAnswered() {
+        answered.increment();
+    }
+    
+    void recordFallback() {
+        fallbacks.increment();
+    }
+    
+    void recordBelowThreshold() {
+        belowThreshold.increment();
+    }
+    
+    void recordUnmatched() {
+        unmatched.increment();
+    }
+    
+    /**
+     * Messages answered locally, without calling the LLM
+     */
+    public long answered() {
+        return answered.sum();
+    }
+    
+    /**
+     * Routed messages handed to the LLM after all because the tool failed or the route declined its result
+     */
+    public long fallbacks() {
+        return fallbacks.sum();
+    }
+    
+    /**
+     * Messages a route matched, but not confidently enough
+     */
+    public long belowThreshold() {
+        return belowThreshold.sum();
+    }
+    
+    /**
+     * Messages no route matched
+     */
+    public long unmatched() {
+        return unmatched.sum();
+    }
+    
+    @Override
+    public String toString() {
+        return "FastPathStats{answered=" + answered() + ", fallbacks=" + fallbacks()
+            + ", belowThreshold=" + belowThreshold() + ", unmatched=" + unmatched() + "}";
+    }
+}
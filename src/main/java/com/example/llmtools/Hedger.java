@@ -0,0 +1,263 @@
+package com.example.llmtools;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Sends requests according to a {@link HedgingPolicy}.
+ *
+ * The hedge delay is the configured percentile of recent time-to-progress
+ * samples. Progress means response headers for ordinary calls, or the first
+ * body bytes for streamed calls where headers arrive long before any token.
+ */
+class Hedger {
+    
+    private static final int MIN_SAMPLES = 20;
+    private static final double MAX_BUDGET = 10;
+    
+    private final HedgingPolicy policy;
+    private final HedgingStats stats;
+    private final long[] samples;
+    private int sampleCount;
+    private int nextSample;
+    private double budget = 1;
+    
+    Hedger(HedgingPolicy policy, HedgingStats stats) {
+        this.policy = policy;
+        this.stats = stats;
+        this.samples = new long[policy.sampleWindow()];
+    }
+    
+    /**
+     * Send the request, hedging it if it is slow to make progress.
+     *
+     * @param untilFirstByte measure progress by the first body bytes instead of the headers
+     * @param discard releases a losing response that completed anyway (e.g. closes its stream)
+     * @param admitHedge reserves whatever else a hedge costs (e.g. a rate limit permit); false denies it
+     */
+    <T> CompletableFuture<HttpResponse<T>> send(
+        HttpClient client,
+        HttpRequest request,
+        HttpResponse.BodyHandler<T> handler,
+        boolean untilFirstByte,
+        Consumer<HttpResponse<T>> discard,
+        BooleanSupplier admitHedge
+    ) {
+        stats.recordRequest();
+        depositBudget(policy.budgetRatio());
+        
+        Exchange<T> exchange = new Exchange<>(client, request, handler, untilFirstByte, discard);
+        Attempt<T> primary = exchange.launch(false);
+        
+        CompletableFuture.delayedExecutor(hedgeDelayNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+            if (exchange.result.isDone() || primary.progress.isDone()) {
+                return;
+            }
+            if (!tryWithdrawBudget()) {
+                stats.recordHedgeDenied();
+                return;
+            }
+            if (!admitHedge.getAsBoolean()) {
+                depositBudget(1);
+                stats.recordHedgeDenied();
+                return;
+            }
+            stats.recordHedgeSent();
+            exchange.launch(true);
+        });
+        
+        return exchange.result;
+    }
+    
+    private synchronized void depositBudget(double amount) {
+        budget = Math.min(MAX_BUDGET, budget + amount);
+    }
+    
+    private synchronized boolean tryWithdrawBudget() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        return true;
+    }
+    
+    private synchronized void recordSample(long nanos) {
+        samples[nextSample] = nanos;
+        nextSample = (nextSample + 1) % samples.length;
+        sampleCount = Math.min(sampleCount + 1, samples.length);
+    }
+    
+    private synchronized long hedgeDelayNanos() {
+        if (sampleCount < Math.min(MIN_SAMPLES, samples.length)) {
+            return policy.initialDelay().toNanos();
+        }
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        long delay = sorted[(int) Math.min(sorted.length - 1, Math.floor(policy.percentile() * sorted.length))];
+        return Math.max(policy.minDelay().toNanos(), Math.min(policy.maxDelay().toNanos(), delay));
+    }
+    
+    /**
+     * The original request plus any hedge, racing to complete one result
+     */
+    private class Exchange<T> {
+        final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        private final HttpClient client;
+        private final HttpRequest request;
+        private final HttpResponse.BodyHandler<T> handler;
+        private final boolean untilFirstByte;
+        private final Consumer<HttpResponse<T>> discard;
+        private final List<Attempt<T>> attempts = new CopyOnWriteArrayList<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        
+        Exchange(
+            HttpClient client,
+            HttpRequest request,
+            HttpResponse.BodyHandler<T> handler,
+            boolean untilFirstByte,
+            Consumer<HttpResponse<T>> discard
+        ) {
+            this.client = client;
+            this.request = request;
+            this.handler = handler;
+            this.untilFirstByte = untilFirstByte;
+            this.discard = discard;
+            
+            // A caller cancelling the result cancels every attempt
+            result.whenComplete((response, error) -> {
+                if (result.isCancelled()) {
+                    attempts.forEach(attempt -> attempt.response.cancel(true));
+                }
+            });
+        }
+        
+        Attempt<T> launch(boolean hedge) {
+            Attempt<T> attempt = new Attempt<>(hedge);
+            long start = System.nanoTime();
+            attempt.progress.thenRun(() -> recordSample(System.nanoTime() - start));
+            
+            HttpResponse.BodyHandler<T> tracked = responseInfo -> {
+                HttpResponse.BodySubscriber<T> subscriber = handler.apply(responseInfo);
+                if (untilFirstByte) {
+                    return new FirstByteSubscriber<>(subscriber, attempt.progress);
+                }
+                attempt.progress.complete(null);
+                return subscriber;
+            };
+            
+            inFlight.incrementAndGet();
+            attempt.response = client.sendAsync(request, tracked);
+            attempts.add(attempt);
+            if (result.isDone()) {
+                // Lost the race before it started
+                attempt.response.cancel(true);
+                attempt.response.thenAccept(discard);
+            }
+            
+            CompletableFuture<HttpResponse<T>> ready = untilFirstByte
+                ? attempt.response.thenCombine(attempt.progress, (response, progress) -> response)
+                : attempt.response;
+            ready.whenComplete((response, error) -> finish(attempt, response, error));
+            
+            return attempt;
+        }
+        
+        private void finish(Attempt<T> attempt, HttpResponse<T> response, Throwable error) {
+            int remaining = inFlight.decrementAndGet();
+            
+            if (error == null) {
+                if (result.complete(response)) {
+                    if (attempt.hedge) {
+                        stats.recordHedgeWon();
+                    }
+                    cancelOthers(attempt);
+                } else {
+                    discard.accept(response);
+                }
+            } else if (remaining == 0) {
+                // Only fail once no other attempt can still succeed
+                result.completeExceptionally(error);
+            }
+        }
+        
+        private void cancelOthers(Attempt<T> winner) {
+            for (Attempt<T> attempt : attempts) {
+                if (attempt != winner) {
+                    attempt.response.cancel(true);
+                    attempt.response.thenAccept(discard);
+                }
+            }
+        }
+    }
+    
+    private static class Attempt<T> {
+        final boolean hedge;
+        final CompletableFuture<Void> progress = new CompletableFuture<>();
+        volatile CompletableFuture<HttpResponse<T>> response;
+        
+        Attempt(boolean hedge) {
+            this.hedge = hedge;
+        }
+    }
+    
+    /**
+     * Signals progress on the first body bytes (or the end of an empty body) and
+     * otherwise passes everything through
+     */
+    private static class FirstByteSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+        private final HttpResponse.BodySubscriber<T> delegate;
+        private final CompletableFuture<Void> progress;
+        
+        FirstByteSubscriber(HttpResponse.BodySubscriber<T> delegate, CompletableFuture<Void> progress) {
+            this.delegate = delegate;
+            this.progress = progress;
+        }
+        
+        @Override
+        public CompletionStage<T> getBody() {
+            return delegate.getBody();
+        }
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            delegate.onSubscribe(subscription);
+        }
+        
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            if (!progress.isDone()) {
+                for (ByteBuffer buffer : item) {
+                    if (buffer.hasRemaining()) {
+                        progress.complete(null);
+                        break;
+                    }
+                }
+            }
+            delegate.onNext(item);
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            progress.completeExceptionally(throwable);
+            delegate.onError(throwable);
+        }
+        
+        @Override
+        public void onComplete() {
+            progress.complete(null);
+            delegate.onComplete();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.llmtools;
+
+import java.time.Duration;
+
+/**
+ * Settings for hedged LLM requests.
+ *
+ * When a request has not shown progress (response headers, or the first body
+ * bytes of a streamed completion) after a delay derived from recent latency,
+ * a duplicate is sent and whichever answers first wins; the other is
+ * cancelled. The budget caps hedges to a fraction of all requests so hedging
+ * cannot double the load on a struggling upstream.
+ */
+public final class HedgingPolicy {
+    
+    private final double percentile;
+    private final Duration initialDelay;
+    private final Duration minDelay;
+    private final Duration maxDelay;
+    private final double budgetRatio;
+    private final int sampleWindow;
+    
+    private HedgingPolicy(Builder builder) {
+        this.percentile = builder.percentile;
+        this.initialDelay = builder.initialDelay;
+        this.minDelay = builder.minDelay;
+        this.maxDelay = builder.maxDelay;
+        this.budgetRatio = builder.budgetRatio;
+        this.sampleWindow = builder.sampleWindow;
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    public double percentile() {
+        return percentile;
+    }
+    
+    public Duration initialDelay() {
+        return initialDelay;
+    }
+    
+    public Duration minDelay() {
+        return minDelay;
+    }
+    
+    public Duration maxDelay() {
+        return maxDelay;
+    }
+    
+    public double budgetRatio() {
+        return budgetRatio;
+    }
+    
+    public int sampleWindow() {
+        return sampleWindow;
+    }
+    
+    public static class Builder {
+        private double percentile = 0.95;
+        private Duration initialDelay = Duration.ofSeconds(2);
+        private Duration minDelay = Duration.ofMillis(50);
+        private Duration maxDelay = Duration.ofSeconds(10);
+        private double budgetRatio = 0.05;
+        private int sampleWindow = 256;
+        
+        private Builder() {
+        }
+        
+        /**
+         * Latency percentile used as the hedge delay, e.g. 0.95 for p95
+         */
+        public Builder percentile(double percentile) {
+            if (percentile <= 0 || percentile >= 1) {
+                throw new IllegalArgumentException("percentile must be between 0 and 1: " + percentile);
+            }
+            this.percentile = percentile;
+            return this;
+        }
+        
+        /**
+         * Delay used until enough latency samples have been collected
+         */
+        public Builder initialDelay(Duration initialDelay) {
+            this.initialDelay = initialDelay;
+            return this;
+        }
+        
+        public Builder minDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+            return this;
+        }
+        
+        public Builder maxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+        
+        /**
+         * Maximum hedges as a fraction of requests, e.g. 0.05 for at most 5% extra requests
+         */
+        public Builder budgetRatio(double budgetRatio) {
+            if (budgetRatio < 0) {
+                throw new IllegalArgumentException("budgetRatio must not be negative: " + budgetRatio);
+            }
+            this.budgetRatio = budgetRatio;
+            return this;
+        }
+        
+        /**
+         * Number of recent latency samples the percentile is computed over
+         */
+        public Builder sampleWindow(int sampleWindow) {
+            if (sampleWindow < 1) {
+                throw new IllegalArgumentException("sampleWindow must be positive: " + sampleWindow);
+            }
+            this.sampleWindow = sampleWindow;
+            return this;
+        }
+        
+        public HedgingPolicy build() {
+            return new HedgingPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.llmtools;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for hedged LLM requests
+ */
+public class HedgingStats {
+    
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder hedgesDenied = new LongAdder();
+    
+    void recordRequest() {
+        requests.increment();
+    }
+    
+    void recordHedgeSent() {
+        hedgesSent.increment();
+    }
+    
+    void recordHedgeWon() {
+        hedgesWon.increment();
+    }
+    
+    void recordHedgeDenied() {
+        hedgesDenied.increment();
+    }
+    
+    public long requests() {
+        return requests.sum();
+    }
+    
+    /**
+     * Duplicate requests actually sent
+     */
+    public long hedgesSent() {
+        return hedgesSent.sum();
+    }
+    
+    /**
+     * Hedges that answered before the original request
+     */
+    public long hedgesWon() {
+        return hedgesWon.sum();
+    }
+    
+    /**
+     * Hedges that were due but skipped because the budget was exhausted
+     */
+    public long hedgesDenied() {
+        return hedgesDenied.sum();
+    }
+    
+    @Override
+    public String toString() {
+        return "HedgingStats{requests=" + requests() + ", hedgesSent=" + hedgesSent()
+            + ", hedgesWon=" + hedgesWon() + ", hedgesDenied=" + hedgesDenied() + "}";
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.llmtools;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.LongConsumer;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Response body subscriber that parses JSON while the body is still arriving.
+ *
+ * Every ByteBuffer handed over by the HTTP client is fed to Jackson's
+ * non-blocking parser and tokenized immediately; the tokens are kept in a
+ * TokenBuffer. When the last buffer lands only the (cheap) binding step is
+ * left: the decoder runs over the buffered tokens and the body completes.
+ */
+class JsonBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+    
+    /**
+     * Binds a value from a parser positioned before its first token
+     */
+    interface Decoder<T> {
+        T decode(JsonParser parser) throws IOException;
+    }
+    
+    private final ObjectMapper objectMapper;
+    private final Decoder<T> decoder;
+    private final LongConsumer onComplete;
+    private final CompletableFuture<T> body = new CompletableFuture<>();
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final TokenBuffer tokens;
+    private Flow.Subscription subscription;
+    private long bytesReceived;
+    
+    /**
+     * @param onComplete receives the number of body bytes once the body is complete
+     */
+    JsonBodySubscriber(ObjectMapper objectMapper, Decoder<T> decoder, LongConsumer onComplete) {
+        this.objectMapper = objectMapper;
+        this.decoder = decoder;
+        this.onComplete = onComplete;
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Non-blocking JSON parser unavailable", e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        this.tokens = new TokenBuffer(parser, null);
+    }
+    
+    @Override
+    public CompletionStage<T> getBody() {
+        return body;
+    }
+    
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+    
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+        try {
+            for (ByteBuffer buffer : buffers) {
+                bytesReceived += buffer.remaining();
+                feeder.feedInput(buffer);
+                drainTokens();
+            }
+        } catch (IOException | RuntimeException e) {
+            subscription.cancel();
+            body.completeExceptionally(e);
+            return;
+        }
+        subscription.request(1);
+    }
+    
+    @Override
+    public void onError(Throwable throwable) {
+        body.completeExceptionally(throwable);
+    }
+    
+    @Override
+    public void onComplete() {
+        try {
+            feeder.endOfInput();
+            drainTokens();
+            onComplete.accept(bytesReceived);
+            try (JsonParser buffered = tokens.asParser(objectMapper)) {
+                body.complete(decoder.decode(buffered));
+            }
+        } catch (IOException | RuntimeException e) {
+            body.completeExceptionally(e);
+        }
+    }
+    
+    /**
+     * Move every token the parser can produce from the input so far into the buffer
+     */
+    private void drainTokens() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            tokens.copyCurrentEvent(parser);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.llmtools;
+
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+
+/**
+ * A non-200 response from the LLM endpoint, keeping the status and headers
+ * so callers (and the retry engine) can act on them
+ */
+public class LLMApiException extends IOException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final int statusCode;
+    private final String body;
+    private final transient HttpHeaders headers;
+    
+    public LLMApiException(int statusCode, String body, HttpHeaders headers) {
+        super("API Error: " + statusCode + " - " + body);
+        this.statusCode = statusCode;
+        this.body = body;
+        this.headers = headers;
+    }
+    
+    public int statusCode() {
+        return statusCode;
+    }
+    
+    public String body() {
+        return body;
+    }
+    
+    public HttpHeaders headers() {
+        return headers;
+    }
+}
@@ -1,17 +1,38 @@
 package com.example.llmtools;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 
 /**
  * Simple LLM Tool Call Example
@@ -30,12 +51,152 @@ public class LLMToolCaller {
     
     private static final String OPENCODEZEN_API_KEY = System.getenv("OPENCODEZEN_API_KEY");
     private static final String API_URL = "https://opencode.ai/zen/v1/chat/completions";
-    private final HttpClient httpClient;
+    private static final int REPLY_PRIMING_TOKENS = 3;
+    private final HttpClient llmHttpClient;
+    private final Duration llmRequestTimeout;
+    private final boolean compressRequests;
+    private final int compressionThreshold;
+    private final boolean acceptCompressedResponses;
+    private final CompressionStats compressionStats = new CompressionStats();
+    private final BufferPool requestBuffers = new BufferPool(64, 1024 * 1024);
+    private final HedgingStats hedgingStats = new HedgingStats();
+    private final Hedger hedger;
+    private final RetryStats retryStats = new RetryStats();
+    private final Retrier retrier;
+    private final RateLimitStats rateLimitStats = new RateLimitStats();
+    private final RateLimiter rateLimiter;
     private final ObjectMapper objectMapper;
+    private final ObjectWriter chatRequestWriter;
+    private final ObjectWriter messageWriter;
+    private final ObjectReader chatResponseReader;
+    private final ToolRegistry toolRegistry;
+    private final Tokenizer tokenizer;
+    private final PromptBudget promptBudget;
+    private final int toolDefinitionTokens;
+    private final int maxParallelTools;
+    private final Integer maxTokens;
+    private final Duration toolTimeout;
+    private final Map<String, Duration> toolTimeouts;
+    private final Map<String, BulkheadStats> bulkheadStats;
+    private final SpeculationStats speculationStats = new SpeculationStats();
+    private final ToolSpeculator speculator;
+    private final FastPathStats fastPathStats = new FastPathStats();
+    private final FastPathRouter fastPathRouter;
     
     public LLMToolCaller() {
-        this.httpClient = HttpClient.newHttpClient();
-        this.objectMapper = new ObjectMapper();
+        this(builder());
+    }
+    
+    private LLMToolCaller(Builder builder) {
+        HttpClient sharedClient = null;
+        if (builder.llmHttpClient == null || builder.toolHttpClient == null) {
+            sharedClient = builder.buildHttpClient();
+        }
+        this.llmHttpClient = builder.llmHttpClient != null ? builder.llmHttpClient : sharedClient;
+        this.llmRequestTimeout = builder.llmRequestTimeout;
+        this.compressRequests = builder.compressRequests;
+        this.compressionThreshold = builder.compressionThreshold;
+        this.acceptCompressedResponses = builder.acceptCompressedResponses;
+        this.hedger = builder.hedgingPolicy != null ? new Hedger(builder.hedgingPolicy, hedgingStats) : null;
+        this.retrier = new Retrier(builder.retryPolicy, retryStats);
+        this.rateLimiter = builder.rateLimitPolicy != null ? new RateLimiter(builder.rateLimitPolicy, rateLimitStats) : null;
+        this.objectMapper = new ObjectMapper().registerModule(new BlackbirdModule());
+        
+        // Resolved once, so each request skips the serializer/deserializer lookup
+        this.chatRequestWriter = objectMapper.writerFor(ChatRequest.class);
+        this.messageWriter = objectMapper.writerFor(Message.class);
+        this.chatResponseReader = objectMapper.readerFor(ChatResponse.class);
+        
+        // The built-in tools come from compile-time bindings; extra holders are scanned
+        HttpClient toolHttpClient = builder.toolHttpClient != null ? builder.toolHttpClient : sharedClient;
+        // Before JDK 16 cancelling sendAsync does not abort the exchange, so the
+        // search tool's deadline also bounds its HTTP request
+        Duration searchTimeout = builder.toolTimeouts.getOrDefault(BuiltinTools.SEARCH_STARWARS_CHARACTER, builder.toolTimeout);
+        if (builder.toolRequestTimeout != null && builder.toolRequestTimeout.compareTo(searchTimeout) < 0) {
+            searchTimeout = builder.toolRequestTimeout;
+        }
+        BuiltinTools builtinTools = new BuiltinTools(toolHttpClient, searchTimeout, objectMapper);
+        this.toolRegistry = new ToolRegistry(objectMapper, BuiltinToolsBindings.tools(builtinTools), builder.toolHolders);
+        this.bulkheadStats = Collections.unmodifiableMap(toolRegistry.bulkheadStats());
+        
+        this.tokenizer = builder.tokenizer != null ? builder.tokenizer : Tokenizer.estimating();
+        this.promptBudget = builder.promptBudget;
+        this.toolDefinitionTokens = tokenizer.countTokens(toolRegistry.definitionsJson());
+        this.maxParallelTools = builder.maxParallelTools;
+        this.maxTokens = builder.maxTokens;
+        this.speculator = builder.speculator;
+        this.fastPathRouter = builder.fastPathPolicy != null
+            ? new FastPathRouter(builder.fastPathPolicy, toolRegistry, fastPathStats)
+            : null;
+        
+        this.toolTimeout = builder.toolTimeout;
+        this.toolTimeouts = new HashMap<>(builder.toolTimeouts);
+        for (String toolName : toolTimeouts.keySet()) {
+            if (toolRegistry.find(toolName) == null) {
+                throw new IllegalArgumentException("Timeout set for unknown tool: " + toolName);
+            }
+        }
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * Byte counters for the LLM endpoint, including bytes saved by compression
+     */
+    public CompressionStats compressionStats() {
+        return compressionStats;
+    }
+    
+    /**
+     * Counters for hedged LLM requests (all zero unless a hedging policy is set)
+     */
+    public HedgingStats hedgingStats() {
+        return hedgingStats;
+    }
+    
+    /**
+     * Counters for retried LLM calls
+     */
+    public RetryStats retryStats() {
+        return retryStats;
+    }
+    
+    /**
+     * Counters for the client-side rate limiter (all zero unless a rate limit policy is set)
+     */
+    public RateLimitStats rateLimitStats() {
+        return rateLimitStats;
+    }
+    
+    /**
+     * Bulkhead counters by tool name, for the tools whose @Tool sets maxConcurrent
+     */
+    public Map<String, BulkheadStats> bulkheadStats() {
+        return bulkheadStats;
+    }
+    
+    /**
+     * Counters for speculative tool prefetches (all zero unless a speculator is set)
+     */
+    public SpeculationStats speculationStats() {
+        return speculationStats;
+    }
+    
+    /**
+     * Counters for the local fast path (all zero unless a fast path policy is set)
+     */
+    public FastPathStats fastPathStats() {
+        return fastPathStats;
+    }
+    
+    /**
+     * Prompt tokens of the first request chatWithTools would send for this message,
+     * tool definitions included, counted with the configured tokenizer
+     */
+    public int countTokens(String userMessage) {
+        return promptTokens(buildInitialRequest(userMessage));
     }
     
     /**
@@ -64,305 +225,1001 @@ public class LLMToolCaller {
      * Main method to chat with LLM that has tool calling capabilities
      */
     public String chatWithTools(String userMessage) throws Exception {
-        // Define available tools
-        List<Map<String, Object>> tools = List.of(
-            getStarWarsTool(),
-            getCalculatorTool()
-        );
+        return await(chatWithToolsAsync(userMessage));
+    }
+    
+    /**
+     * Non-blocking variant of chatWithTools.
+     * 
+     * Every hop (first LLM call, tool execution, final LLM call) is chained on
+     * HttpClient.sendAsync, so no thread is held while waiting on the network.
+     * With a fast path configured, messages it recognizes are answered from
+     * the tool result alone.
+     */
+    public CompletableFuture<String> chatWithToolsAsync(String userMessage) {
+        FastPathRoute.Match match = fastPathRouter != null ? fastPathRouter.route(userMessage) : null;
+        if (match == null) {
+            // Warm the likely tool calls while the LLM decides
+            return chatWithLLMAsync(userMessage, speculate(userMessage, null, null));
+        }
         
+        CompletableFuture<ToolResult> invocation = invokeFastPath(match);
+        return executeToolCallAsync(match.toolName(), match.arguments(), invocation).thenCompose(result -> {
+            String reply = fastPathReply(match, result);
+            if (reply != null) {
+                return CompletableFuture.completedFuture(reply);
+            }
+            // If the model asks for the same call, it gets this result instead of a second lookup
+            return chatWithLLMAsync(userMessage, speculate(userMessage, match, invocation));
+        });
+    }
+    
+    private CompletableFuture<String> chatWithLLMAsync(String userMessage, Speculation speculation) {
         // Build the initial request
-        ObjectNode requestBody = objectMapper.createObjectNode();
-        requestBody.put("model", "kimi-k2.5");
+        ChatRequest requestBody = buildInitialRequest(userMessage);
         
-        ArrayNode messages = requestBody.putArray("messages");
-        ObjectNode userMsg = messages.addObject();
-        userMsg.put("role", "user");
-        userMsg.put("content", userMessage);
+        // Call the LLM
+        CompletableFuture<String> result = callOpenCodeZenAsync(requestBody).thenCompose(response -> {
+            if (!response.hasMessage()) {
+                return CompletableFuture.completedFuture("No response from LLM");
+            }
+            
+            // Check if the LLM wants to call tools
+            if (response.hasToolCalls()) {
+                // Execute tools, then add the results to the conversation and get final response
+                return executeToolCallsAsync(response.toolCalls(), speculation)
+                    .thenCompose(toolResults -> getFinalResponseAsync(requestBody, response, toolResults));
+            } else {
+                // No tools needed, just return the content
+                return CompletableFuture.completedFuture(contentOf(response));
+            }
+        });
         
-        ArrayNode toolsArray = requestBody.putArray("tools");
-        for (Map<String, Object> tool : tools) {
-            toolsArray.add(objectMapper.valueToTree(tool));
+        // Also covers a failed first call
+        result.whenComplete((content, error) -> speculation.discard());
+        return result;
+    }
+    
+    /**
+     * Streaming variant of chatWithTools.
+     * 
+     * Content deltas are pushed to onDelta as soon as they arrive, for both the
+     * first call and the follow-up call made after executing tools. Returns the
+     * complete final response once the stream has finished.
+     */
+    public String chatWithToolsStreaming(String userMessage, Consumer<String> onDelta) throws Exception {
+        FastPathRoute.Match match = fastPathRouter != null ? fastPathRouter.route(userMessage) : null;
+        CompletableFuture<ToolResult> fastPathInvocation = null;
+        if (match != null) {
+            fastPathInvocation = invokeFastPath(match);
+            ToolResult result = await(executeToolCallAsync(match.toolName(), match.arguments(), fastPathInvocation));
+            String reply = fastPathReply(match, result);
+            if (reply != null) {
+                onDelta.accept(reply);
+                return reply;
+            }
         }
         
-        requestBody.put("tool_choice", "auto");
+        ChatRequest requestBody = buildInitialRequest(userMessage).withStream(true);
+        Speculation speculation = speculate(userMessage, match, fastPathInvocation);
         
-        // Call the LLM
-        String llmResponse = callOpenCodeZen(requestBody);
-        JsonNode responseJson = objectMapper.readTree(llmResponse);
+        // Stream the first call; each tool starts as soon as its arguments are complete,
+        // up to maxParallelTools at a time
+        AsyncLimiter limiter = new AsyncLimiter(maxParallelTools);
+        ToolCallAssembler assembler = new ToolCallAssembler((toolName, arguments) -> {
+            CompletableFuture<ToolResult> prefetched = speculation.claim(toolRegistry.find(toolName), arguments);
+            return limiter.submit(() -> executeToolCallAsync(toolName, arguments, prefetched));
+        });
         
-        // Check if the LLM wants to call tools
-        JsonNode choices = responseJson.get("choices");
-        if (choices == null || choices.size() == 0) {
-            return "No response from LLM";
+        try {
+            ChatResponse response = callOpenCodeZenStreaming(requestBody, onDelta, assembler);
+            
+            if (response.hasToolCalls()) {
+                List<Message> toolResults = assembler.awaitResults();
+                return getFinalResponseStreaming(requestBody, response, toolResults, onDelta);
+            } else {
+                return contentOf(response);
+            }
+        } finally {
+            speculation.discard();
+        }
+    }
+    
+    /**
+     * Start the matched tool call. The raw invocation is kept so the fallback
+     * can tell a real result from the error result built for a failure.
+     */
+    private CompletableFuture<ToolResult> invokeFastPath(FastPathRoute.Match match) {
+        ToolMethod tool = toolRegistry.find(match.toolName());
+        return tool != null ? tool.invoke(match.arguments()) : null;
+    }
+    
+    /**
+     * The fast-path reply for this tool result, or null to fall back to the LLM
+     */
+    private String fastPathReply(FastPathRoute.Match match, ToolResult result) {
+        String reply;
+        try {
+            reply = match.reply(ToolResultSink.render(result));
+        } catch (RuntimeException e) {
+            reply = null;
         }
         
-        JsonNode message = choices.get(0).get("message");
+        if (reply != null) {
+            fastPathStats.recordAnswered();
+        } else {
+            fastPathStats.recordFallback();
+        }
+        return reply;
+    }
+    
+    /**
+     * Start the speculator's prefetches, and offer a fast-path result that was
+     * not good enough to answer with to the same call from the LLM.
+     */
+    private Speculation speculate(
+        String userMessage,
+        FastPathRoute.Match match,
+        CompletableFuture<ToolResult> fastPathInvocation
+    ) {
+        Speculation speculation = speculator == null
+            ? Speculation.none()
+            : Speculation.start(speculator, userMessage, toolRegistry, this::toolTimeout, speculationStats);
+        if (match == null) {
+            return speculation;
+        }
+        return speculation.reuse(toolRegistry.find(match.toolName()), match.arguments(), fastPathInvocation);
+    }
+    
+    /**
+     * Build the first request: user message plus the available tools
+     */
+    private ChatRequest buildInitialRequest(String userMessage) {
+        Conversation conversation = Conversation.empty(messageWriter, tokenizer).append(Message.user(userMessage));
+        return new ChatRequest("kimi-k2.5", conversation)
+            // Spliced in as pre-encoded bytes when the request is serialized
+            .withTools(toolRegistry.definitions(), "auto")
+            .withMaxTokens(maxTokens);
+    }
+    
+    /**
+     * Execute the tool calls returned by the LLM concurrently, at most
+     * maxParallelTools at a time, so a turn takes about as long as its slowest
+     * tool. Calls the speculation already started take over the prefetched
+     * result; unclaimed prefetches are then discarded. The tool messages come
+     * back in the order of the calls.
+     */
+    private CompletableFuture<List<Message>> executeToolCallsAsync(List<ToolCall> toolCalls, Speculation speculation) {
+        AsyncLimiter limiter = new AsyncLimiter(maxParallelTools);
+        List<CompletableFuture<ToolResult>> results = new ArrayList<>(toolCalls.size());
+        for (ToolCall toolCall : toolCalls) {
+            // Claim a matching prefetch now, before queued calls wait for a slot
+            CompletableFuture<ToolResult> prefetched =
+                speculation.claim(toolRegistry.find(toolCall.name()), toolCall.arguments());
+            results.add(limiter.submit(() -> executeToolCallAsync(toolCall.name(), toolCall.arguments(), prefetched)));
+        }
+        speculation.discard();
+        
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<Message> messages = new ArrayList<>(toolCalls.size());
+            for (int i = 0; i < toolCalls.size(); i++) {
+                messages.add(Message.tool(toolCalls.get(i).id(), results.get(i).join()));
+            }
+            return messages;
+        });
+    }
+    
+    /**
+     * Execute a single tool call. The returned future never fails: any error is
+     * turned into an error result for the LLM.
+     */
+    private CompletableFuture<ToolResult> executeToolCallAsync(
+        String toolName,
+        String arguments,
+        CompletableFuture<ToolResult> prefetched
+    ) {
+        ToolMethod tool = toolRegistry.find(toolName);
+        if (tool == null) {
+            return CompletableFuture.completedFuture(ToolResult.of("Error: Unknown tool: " + toolName));
+        }
+        
+        // On the deadline the invocation fails, which also cancels the tool's
+        // own future and so aborts any HTTP exchange it has in flight. A claimed
+        // prefetch keeps the deadline it got when it was started.
+        Duration timeout = toolTimeout(toolName);
+        CompletableFuture<ToolResult> invocation = prefetched != null ? prefetched : tool.invoke(arguments);
+        return invocation.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).exceptionally(e -> {
+            Throwable cause = unwrap(e);
+            if (cause instanceof TimeoutException) {
+                return ToolResult.of("Error: " + toolName + " timed out after " + timeout.toMillis() + " ms");
+            }
+            if (cause instanceof RejectedExecutionException) {
+                // The tool's bulkhead is full
+                return ToolResult.of("Error: " + toolName + " is busy, try again later");
+            }
+            if (cause instanceof ToolArgumentException) {
+                // Tell the model exactly which argument was wrong
+                return ToolResult.of("Error: " + cause.getMessage());
+            }
+            return ToolResult.of("Error executing tool: " + cause.getMessage());
+        });
+    }
+    
+    private Duration toolTimeout(String toolName) {
+        return toolTimeouts.getOrDefault(toolName, toolTimeout);
+    }
+    
+    /**
+     * Get final response after executing tools
+     */
+    private CompletableFuture<String> getFinalResponseAsync(
+        ChatRequest originalRequest,
+        ChatResponse assistantMessage,
+        List<Message> toolResults
+    ) {
+        ChatRequest newRequest = buildFinalRequest(originalRequest, assistantMessage, toolResults);
+        
+        // Call LLM again with results
+        return callOpenCodeZenAsync(newRequest).thenApply(LLMToolCaller::contentOf);
+    }
+    
+    /**
+     * Streaming variant of getFinalResponse
+     */
+    private String getFinalResponseStreaming(
+        ChatRequest originalRequest,
+        ChatResponse assistantMessage,
+        List<Message> toolResults,
+        Consumer<String> onDelta
+    ) throws Exception {
         
-        // Check for tool calls
-        JsonNode toolCalls = message.get("tool_calls");
-        if (toolCalls != null && toolCalls.isArray() && toolCalls.size() > 0) {
-            // Execute tools and get results
-            ArrayNode toolResults = executeToolCalls(toolCalls);
+        ChatRequest newRequest = buildFinalRequest(originalRequest, assistantMessage, toolResults).withStream(true);
+        
+        ChatResponse response = callOpenCodeZenStreaming(newRequest, onDelta, new ToolCallAssembler(null));
+        return contentOf(response);
+    }
+    
+    /**
+     * Build the follow-up request carrying the assistant's tool calls and their results
+     */
+    private ChatRequest buildFinalRequest(
+        ChatRequest originalRequest,
+        ChatResponse assistantMessage,
+        List<Message> toolResults
+    ) {
+        // Append the assistant's tool call message and the tool results; the
+        // earlier messages are shared with the original request, already encoded
+        Conversation conversation = originalRequest.conversation()
+            .append(Message.assistant(assistantMessage.content(), assistantMessage.toolCalls()));
+        
+        if (promptBudget != null && promptBudget.trimToolResults()) {
+            int available = promptBudget.maxPromptTokens() - conversation.tokenCount() - REPLY_PRIMING_TOKENS;
+            toolResults = promptBudget.trim(toolResults, available, tokenizer);
+        }
+        
+        // Remove tools from second call (we've already used them)
+        return originalRequest.withConversation(conversation.append(toolResults)).withoutTools();
+    }
+    
+    /**
+     * HTTP Client to call OpenCodeZen API
+     */
+    private CompletableFuture<ChatResponse> callOpenCodeZenAsync(ChatRequest requestBody) {
+        HttpRequest.Builder request = newLlmRequest();
+        BufferBodyPublisher requestBuffer;
+        try {
+            checkPromptBudget(requestBody);
+            requestBuffer = writeJsonBody(request, requestBody);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        long tokenCost = estimateTokenCost(requestBody);
+        return sendLlm(request.build(), chatResponseHandler(), false, response -> { }, tokenCost)
+            .whenComplete((response, error) -> releaseRequestBuffer(requestBuffer, error))
+            .thenApply(response -> {
+                ChatResponse chatResponse = response.body();
+                if (rateLimiter != null && chatResponse.usage() != null) {
+                    rateLimiter.refund(tokenCost, chatResponse.usage().totalTokens());
+                }
+                return chatResponse;
+            });
+    }
+    
+    /**
+     * Body handler for chat completions.
+     * 
+     * Uncompressed bodies are parsed incrementally as the bytes arrive, so the
+     * response is decoded as soon as the last byte lands. Compressed bodies are
+     * kept as received and decoded straight into the parser at the end. Any
+     * status other than 200 fails the exchange with the decoded error body.
+     */
+    private HttpResponse.BodyHandler<ChatResponse> chatResponseHandler() {
+        return responseInfo -> {
+            String contentEncoding = responseInfo.headers().firstValue("Content-Encoding").orElse(null);
             
-            // Add the tool results to the conversation and get final response
-            return getFinalResponse(requestBody, message, toolResults);
-        } else {
-            // No tools needed, just return the content
-            return message.get("content").asText();
+            if (responseInfo.statusCode() != 200) {
+                return errorBody(responseInfo, contentEncoding);
+            }
+            
+            if (contentEncoding == null || contentEncoding.equalsIgnoreCase("identity")) {
+                return new JsonBodySubscriber<>(objectMapper, chatResponseReader::readValue,
+                    bytes -> compressionStats.recordResponse(bytes, bytes));
+            }
+            
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), bytes -> {
+                try (InputStream body = decodeBody(contentEncoding, new ByteArrayInputStream(bytes));
+                     JsonParser parser = objectMapper.getFactory().createParser(body)) {
+                    return chatResponseReader.readValue(parser);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            });
+        };
+    }
+    
+    /**
+     * Body handler for streamed completions: the raw body stream on 200, otherwise
+     * the exchange fails with the decoded error body
+     */
+    private HttpResponse.BodyHandler<InputStream> streamResponseHandler() {
+        return responseInfo -> {
+            if (responseInfo.statusCode() != 200) {
+                return errorBody(responseInfo, responseInfo.headers().firstValue("Content-Encoding").orElse(null));
+            }
+            return HttpResponse.BodySubscribers.ofInputStream();
+        };
+    }
+    
+    /**
+     * Collects an error response and fails the exchange with an LLMApiException
+     */
+    private <T> HttpResponse.BodySubscriber<T> errorBody(HttpResponse.ResponseInfo responseInfo, String contentEncoding) {
+        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), bytes -> {
+            String message;
+            try (InputStream body = decodeBody(contentEncoding, new ByteArrayInputStream(bytes))) {
+                message = readString(body);
+            } catch (IOException e) {
+                message = "<undecodable body: " + e.getMessage() + ">";
+            }
+            throw new CompletionException(
+                new LLMApiException(responseInfo.statusCode(), message, responseInfo.headers()));
+        });
+    }
+    
+    /**
+     * Return a request buffer to the pool once its exchange is over. Hedged
+     * losers and cancelled calls are only sent cancel(true), which before JDK 16
+     * does not abort the exchange, so it may still be writing views of the
+     * array; their buffers are left to the garbage collector instead.
+     */
+    private void releaseRequestBuffer(BufferBodyPublisher requestBuffer, Throwable error) {
+        if (hedger == null && !(unwrap(error) instanceof CancellationException)) {
+            requestBuffer.release();
         }
     }
     
     /**
-     * Execute the tool calls returned by the LLM
+     * Serialize the request body as UTF-8 straight into a pooled buffer (gzip-compressing
+     * it when enabled and large enough) and set it as the POST body.
+     * The caller must release the returned publisher once the exchange is over.
      */
-    private ArrayNode executeToolCalls(JsonNode toolCalls) throws Exception {
-        ArrayNode results = objectMapper.createArrayNode();
+    private BufferBodyPublisher writeJsonBody(HttpRequest.Builder request, ChatRequest requestBody) throws IOException {
+        BufferPool.Buffer json = requestBuffers.acquire();
+        BufferPool.Buffer body = json;
+        int rawSize;
+        try {
+            chatRequestWriter.writeValue(json, requestBody);
+            request.header("Content-Type", "application/json");
+            
+            rawSize = json.size();
+            if (compressRequests && rawSize >= compressionThreshold) {
+                body = requestBuffers.acquire();
+                ContentCoding.gzip(json.array(), 0, rawSize, body);
+                request.header("Content-Encoding", "gzip");
+                json.release();
+            }
+            compressionStats.recordRequest(rawSize, body.size());
+        } catch (IOException | RuntimeException e) {
+            json.release();
+            body.release();
+            throw e;
+        }
         
-        for (JsonNode toolCall : toolCalls) {
-            String toolName = toolCall.get("function").get("name").asText();
-            String arguments = toolCall.get("function").get("arguments").asText();
-            String toolCallId = toolCall.get("id").asText();
+        BufferBodyPublisher publisher = new BufferBodyPublisher(body);
+        request.POST(publisher);
+        return publisher;
+    }
+    
+    /**
+     * Wrap a response body in its content decoder. The returned stream records
+     * the received and decoded byte counts when it is closed.
+     */
+    private InputStream decodeBody(String contentEncoding, InputStream received) throws IOException {
+        ContentCoding.CountingInputStream wire = new ContentCoding.CountingInputStream(received);
+        return new ContentCoding.CountingInputStream(ContentCoding.decode(contentEncoding, wire)) {
+            private boolean closed;
             
-            // Parse the arguments
-            JsonNode args = objectMapper.readTree(arguments);
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (!closed) {
+                    closed = true;
+                    compressionStats.recordResponse(wire.count(), count());
+                }
+            }
+        };
+    }
+    
+    private static String readString(InputStream in) throws IOException {
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Send a request to the LLM endpoint under the retry policy, hedging each
+     * attempt when a hedging policy is configured. With a rate limiter, every
+     * attempt waits for its own permit, so a retry after a 429 waits for the
+     * drained bucket, and a hedge is only sent if it can be charged at once.
+     * Streamed calls are hedged on their first body bytes rather than on
+     * headers, and are only retried up to that point: once content has been
+     * handed to the caller it is not replayed.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> sendLlm(
+        HttpRequest request,
+        HttpResponse.BodyHandler<T> handler,
+        boolean streaming,
+        Consumer<HttpResponse<T>> discard,
+        long tokenCost
+    ) {
+        if (rateLimiter == null) {
+            return retrier.execute(() -> sendLlmAttempt(request, handler, streaming, discard, () -> true));
+        }
+        
+        // Every response, including errors, feeds its rate limit headers back to the limiter
+        HttpResponse.BodyHandler<T> observed = responseInfo -> {
+            rateLimiter.observe(responseInfo.statusCode(), responseInfo.headers());
+            return handler.apply(responseInfo);
+        };
+        return retrier.execute(() -> sendLlmAttemptWithPermit(request, observed, streaming, discard, tokenCost));
+    }
+    
+    /**
+     * One attempt under the rate limiter: wait for a permit, then send. A
+     * failed attempt gives its whole reservation back unless the server may
+     * have run it; cancelling the result cancels the exchange.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> sendLlmAttemptWithPermit(
+        HttpRequest request,
+        HttpResponse.BodyHandler<T> handler,
+        boolean streaming,
+        Consumer<HttpResponse<T>> discard,
+        long tokenCost
+    ) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        rateLimiter.acquire(tokenCost).whenComplete((permit, rejected) -> {
+            if (rejected != null) {
+                result.completeExceptionally(rejected);
+                return;
+            }
+            if (result.isDone()) {
+                // Cancelled while waiting; nothing was sent
+                rateLimiter.refund(tokenCost, 0);
+                return;
+            }
             
-            // Execute the corresponding method
-            String result;
-            try {
-                switch (toolName) {
-                    case "search_starwars_character":
-                        result = searchStarWarsCharacter(
-                            args.get("name").asText()
-                        );
-                        break;
-                    case "calculate":
-                        result = calculate(
-                            args.get("operation").asText(),
-                            args.get("a").asDouble(),
-                            args.get("b").asDouble()
-                        );
-                        break;
-                    default:
-                        result = "Error: Unknown tool: " + toolName;
+            CompletableFuture<HttpResponse<T>> response = sendLlmAttempt(request, handler, streaming, discard,
+                () -> rateLimiter.tryAcquire(tokenCost));
+            response.whenComplete((value, error) -> {
+                if (error != null) {
+                    if (!mayHaveBeenProcessed(unwrap(error))) {
+                        rateLimiter.refund(tokenCost, 0);
+                    }
+                    result.completeExceptionally(error);
+                } else if (!result.complete(value)) {
+                    discard.accept(value);
+                }
+            });
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) {
+                    response.cancel(true);
                 }
-            } catch (Exception e) {
-                result = "Error executing tool: " + e.getMessage();
+            });
+        });
+        return result;
+    }
+    
+    /**
+     * Whether a failed call may still have used tokens: a 5xx other than 503
+     * can come after the model ran
+     */
+    private static boolean mayHaveBeenProcessed(Throwable cause) {
+        if (!(cause instanceof LLMApiException)) {
+            return false;
+        }
+        int status = ((LLMApiException) cause).statusCode();
+        return status >= 500 && status != 503;
+    }
+    
+    /**
+     * @param admitHedge charges a hedge of this attempt to the rate limiter; false denies it
+     */
+    private <T> CompletableFuture<HttpResponse<T>> sendLlmAttempt(
+        HttpRequest request,
+        HttpResponse.BodyHandler<T> handler,
+        boolean streaming,
+        Consumer<HttpResponse<T>> discard,
+        BooleanSupplier admitHedge
+    ) {
+        if (hedger == null) {
+            return llmHttpClient.sendAsync(request, handler);
+        }
+        return hedger.send(llmHttpClient, request, handler, streaming, discard, admitHedge);
+    }
+    
+    /**
+     * Token cost of a request for rate limiting: its prompt tokens plus the
+     * request's max_tokens (or the policy default)
+     */
+    private long estimateTokenCost(ChatRequest requestBody) {
+        if (rateLimiter == null) {
+            return 0;
+        }
+        long maxTokens = requestBody.maxTokens() != null ? requestBody.maxTokens() : 0;
+        return rateLimiter.estimateTokens(promptTokens(requestBody), maxTokens);
+    }
+    
+    /**
+     * Prompt tokens of a request: its messages, the tool definitions if offered and the reply priming
+     */
+    private int promptTokens(ChatRequest requestBody) {
+        int tools = requestBody.tools() != null ? toolDefinitionTokens : 0;
+        return requestBody.conversation().tokenCount() + tools + REPLY_PRIMING_TOKENS;
+    }
+    
+    private void checkPromptBudget(ChatRequest requestBody) throws PromptTooLargeException {
+        if (promptBudget == null) {
+            return;
+        }
+        promptBudget.check(promptTokens(requestBody));
+    }
+    
+    private static void closeBody(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException e) {
+            // Nothing useful to do with a losing response
+        }
+    }
+    
+    /**
+     * Request builder for the OpenCodeZen endpoint with auth and the LLM timeout applied
+     */
+    private HttpRequest.Builder newLlmRequest() {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+            .uri(URI.create(API_URL))
+            .header("Authorization", "Bearer " + OPENCODEZEN_API_KEY);
+        if (acceptCompressedResponses) {
+            request.header("Accept-Encoding", ContentCoding.ACCEPT_ENCODING);
+        }
+        if (llmRequestTimeout != null) {
+            request.timeout(llmRequestTimeout);
+        }
+        return request;
+    }
+    
+    /**
+     * Streaming HTTP call to OpenCodeZen.
+     * 
+     * The request must have stream set. The response is read as server-sent
+     * events; each content delta is passed to onDelta immediately and tool call
+     * deltas are fed to the assembler. Returns the assembled assistant message.
+     */
+    private ChatResponse callOpenCodeZenStreaming(
+        ChatRequest requestBody,
+        Consumer<String> onDelta,
+        ToolCallAssembler assembler
+    ) throws Exception {
+        checkPromptBudget(requestBody);
+        HttpRequest.Builder request = newLlmRequest()
+            .header("Accept", "text/event-stream");
+        BufferBodyPublisher requestBuffer = writeJsonBody(request, requestBody);
+        
+        StreamedMessage message = new StreamedMessage();
+        long tokenCost = estimateTokenCost(requestBody);
+        
+        HttpResponse<InputStream> response;
+        try {
+            response = await(sendLlm(request.build(), streamResponseHandler(), true,
+                LLMToolCaller::closeBody, tokenCost));
+        } catch (Exception e) {
+            releaseRequestBuffer(requestBuffer, e);
+            throw e;
+        }
+        releaseRequestBuffer(requestBuffer, null);
+        String contentEncoding = response.headers().firstValue("Content-Encoding").orElse(null);
+        
+        try (InputStream body = decodeBody(contentEncoding, response.body())) {
+            BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            StringBuilder data = new StringBuilder();
+            boolean done = false;
+            String line;
+            
+            while (!done && (line = lines.readLine()) != null) {
+                if (line.isEmpty()) {
+                    // Blank line terminates an event
+                    done = handleStreamEvent(data, message, assembler, onDelta);
+                    data.setLength(0);
+                } else if (line.startsWith("data:")) {
+                    String value = line.substring(5);
+                    if (value.startsWith(" ")) {
+                        value = value.substring(1);
+                    }
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(value);
+                }
+                // Comments (":") and event/id/retry fields are ignored
             }
             
-            // Add result to array
-            ObjectNode toolMessage = results.addObject();
-            toolMessage.put("role", "tool");
-            toolMessage.put("tool_call_id", toolCallId);
-            toolMessage.put("content", result);
+            if (!done) {
+                handleStreamEvent(data, message, assembler, onDelta);
+            }
+        }
+        
+        // The final chunk reports the real usage; without it the reservation stands
+        if (rateLimiter != null && message.usage != null) {
+            rateLimiter.refund(tokenCost, message.usage.totalTokens());
         }
         
-        return results;
+        // Assemble the final assistant message
+        return new ChatResponse(true, message.content.toString(), assembler.toolCalls(), null, message.usage);
     }
     
     /**
-     * Get final response after executing tools
+     * What the events of one streamed response add up to
      */
-    private String getFinalResponse(
-        ObjectNode originalRequest,
-        JsonNode assistantMessage,
-        ArrayNode toolResults
+    private static final class StreamedMessage {
+        final StringBuilder content = new StringBuilder();
+        Usage usage;
+    }
+    
+    /**
+     * Apply one server-sent event to the message being assembled.
+     * Returns true when the stream signalled completion with [DONE].
+     */
+    private boolean handleStreamEvent(
+        StringBuilder data,
+        StreamedMessage message,
+        ToolCallAssembler assembler,
+        Consumer<String> onDelta
     ) throws Exception {
+        if (data.length() == 0) {
+            return false;
+        }
+        String payload = data.toString();
+        if (payload.equals("[DONE]")) {
+            return true;
+        }
         
-        // Build new request with all messages
-        ObjectNode newRequest = originalRequest.deepCopy();
-        ArrayNode messages = newRequest.putArray("messages");
+        JsonNode chunk = objectMapper.readTree(payload);
         
-        // Add original user message
-        ObjectNode userMsg = messages.addObject();
-        userMsg.put("role", "user");
-        userMsg.put("content", originalRequest.get("messages").get(0).get("content").asText());
+        // Requested with stream_options.include_usage; arrives last, with no choices
+        JsonNode usage = chunk.get("usage");
+        if (usage != null && usage.isObject()) {
+            message.usage = new Usage(usage.path("prompt_tokens").asInt(), usage.path("completion_tokens").asInt(),
+                usage.path("total_tokens").asInt());
+        }
         
-        // Add assistant's tool call message
-        ObjectNode assistantMsg = messages.addObject();
-        assistantMsg.put("role", "assistant");
-        assistantMsg.set("content", assistantMessage.get("content"));
-        assistantMsg.set("tool_calls", assistantMessage.get("tool_calls"));
+        JsonNode choices = chunk.get("choices");
+        if (choices == null || choices.size() == 0) {
+            return false;
+        }
         
-        // Add tool results
-        for (JsonNode toolResult : toolResults) {
-            messages.add(toolResult);
+        JsonNode delta = choices.get(0).get("delta");
+        if (delta == null) {
+            return false;
         }
         
-        // Remove tools from second call (we've already used them)
-        newRequest.remove("tools");
-        newRequest.remove("tool_choice");
+        // Push text straight to the caller
+        JsonNode text = delta.get("content");
+        if (text != null && !text.isNull() && text.asText().length() > 0) {
+            message.content.append(text.asText());
+            onDelta.accept(text.asText());
+        }
         
-        // Call LLM again with results
-        String llmResponse = callOpenCodeZen(newRequest);
-        JsonNode responseJson = objectMapper.readTree(llmResponse);
+        // Tool calls arrive in fragments keyed by index
+        JsonNode toolCallDeltas = delta.get("tool_calls");
+        if (toolCallDeltas != null && toolCallDeltas.isArray()) {
+            for (JsonNode toolCallDelta : toolCallDeltas) {
+                assembler.accept(toolCallDelta);
+            }
+        }
         
-        return responseJson.get("choices").get(0).get("message").get("content").asText();
+        return false;
     }
     
     /**
-     * ACTUAL TOOL IMPLEMENTATIONS
-     * These are the methods that implement the API calls for each tool
+     * ASYNC HELPERS
      */
     
-    private static final String SWAPI_URL = "https://swapi.dev/api/people/?search=";
+    /**
+     * Message text of a response, empty when the model returned none
+     */
+    private static String contentOf(ChatResponse response) {
+        return response.content() != null ? response.content() : "";
+    }
     
     /**
-     * Search for a Star Wars character using the SWAPI (Star Wars API)
-     * This calls a real public API - no API key required!
+     * Block on a future, rethrowing the original failure rather than a CompletionException
      */
-    private String searchStarWarsCharacter(String name) throws Exception {
-        System.out.println("\n[Executing tool: search_starwars_character]");
-        System.out.println("  Searching for: " + name);
-        
-        // Build the API URL
-        String searchUrl = SWAPI_URL + name.replace(" ", "%20");
-        
-        // Make the HTTP request
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(searchUrl))
-            .header("Accept", "application/json")
-            .GET()
-            .build();
-        
-        HttpResponse<String> response = httpClient.send(request, 
-            HttpResponse.BodyHandlers.ofString());
-        
-        if (response.statusCode() != 200) {
-            return "Error: API returned status " + response.statusCode();
-        }
-        
-        // Parse the response
-        JsonNode swapiResponse = objectMapper.readTree(response.body());
-        JsonNode results = swapiResponse.get("results");
-        
-        if (results == null || results.size() == 0) {
-            return "No character found with name: " + name;
-        }
-        
-        // Get the first result
-        JsonNode character = results.get(0);
-        String charName = character.get("name").asText();
-        String height = character.get("height").asText();
-        String mass = character.get("mass").asText();
-        String hairColor = character.get("hair_color").asText();
-        String eyeColor = character.get("eye_color").asText();
-        String birthYear = character.get("birth_year").asText();
-        String gender = character.get("gender").asText();
-        
-        // Format the result
-        return String.format(
-            "Character: %s\n" +
-            "Height: %s cm\n" +
-            "Mass: %s kg\n" +
-            "Hair Color: %s\n" +
-            "Eye Color: %s\n" +
-            "Birth Year: %s\n" +
-            "Gender: %s",
-            charName, height, mass, hairColor, eyeColor, birthYear, gender
-        );
-    }
-    
-    private String calculate(String operation, double a, double b) {
-        System.out.println("\n[Executing tool: calculate]");
-        System.out.println("  Operation: " + operation);
-        System.out.println("  A: " + a + ", B: " + b);
-        
-        double result;
-        switch (operation) {
-            case "add":
-                result = a + b;
-                break;
-            case "subtract":
-                result = a - b;
-                break;
-            case "multiply":
-                result = a * b;
-                break;
-            case "divide":
-                if (b == 0) return "Error: Division by zero";
-                result = a / b;
-                break;
-            default:
-                return "Error: Unknown operation: " + operation;
-        }
-        
-        return String.format("%.2f %s %.2f = %.2f", a, operation, b, result);
-    }
-    
-    /**
-     * TOOL DEFINITIONS
-     * These define the schema for each tool that the LLM can call
-     */
-    
-    private Map<String, Object> getStarWarsTool() {
-        return Map.of(
-            "type", "function",
-            "function", Map.of(
-                "name", "search_starwars_character",
-                "description", "Search for a Star Wars character using the SWAPI (Star Wars API). Returns character details like height, mass, hair color, eye color, birth year, and gender.",
-                "parameters", Map.of(
-                    "type", "object",
-                    "properties", Map.of(
-                        "name", Map.of(
-                            "type", "string",
-                            "description", "The name of the Star Wars character to search for (e.g., 'Luke Skywalker', 'Darth Vader', 'Leia')"
-                        )
-                    ),
-                    "required", List.of("name")
-                )
-            )
-        );
-    }
-    
-    private Map<String, Object> getCalculatorTool() {
-        return Map.of(
-            "type", "function",
-            "function", Map.of(
-                "name", "calculate",
-                "description", "Perform a mathematical calculation",
-                "parameters", Map.of(
-                    "type", "object",
-                    "properties", Map.of(
-                        "operation", Map.of(
-                            "type", "string",
-                            "description", "The mathematical operation to perform",
-                            "enum", List.of("add", "subtract", "multiply", "divide")
-                        ),
-                        "a", Map.of(
-                            "type", "number",
-                            "description", "The first number"
-                        ),
-                        "b", Map.of(
-                            "type", "number",
-                            "description", "The second number"
-                        )
-                    ),
-                    "required", List.of("operation", "a", "b")
-                )
-            )
-        );
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+    
+    private static Throwable unwrap(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
     }
     
     /**
-     * HTTP Client to call OpenCodeZen API
+     * Builder for LLMToolCaller and its HTTP transport.
+     * 
+     * By default one HTTP/2 client is shared by the LLM endpoint and the tool
+     * endpoints. Either side can be given its own pre-tuned HttpClient instead;
+     * the version, connect timeout and executor settings only apply to the
+     * client the builder creates itself.
      */
-    private String callOpenCodeZen(ObjectNode requestBody) throws Exception {
-        String jsonBody = objectMapper.writeValueAsString(requestBody);
+    public static class Builder {
+        private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Executor executor;
+        private Duration llmRequestTimeout;
+        private Duration toolRequestTimeout;
+        private HttpClient llmHttpClient;
+        private HttpClient toolHttpClient;
+        private boolean compressRequests;
+        private int compressionThreshold = 1024;
+        private boolean acceptCompressedResponses = true;
+        private HedgingPolicy hedgingPolicy;
+        private RetryPolicy retryPolicy = RetryPolicy.defaults();
+        private RateLimitPolicy rateLimitPolicy;
+        private final List<Object> toolHolders = new ArrayList<>();
+        private Tokenizer tokenizer;
+        private PromptBudget promptBudget;
+        private int maxParallelTools = 4;
+        private Integer maxTokens;
+        private Duration toolTimeout = Duration.ofSeconds(30);
+        private final Map<String, Duration> toolTimeouts = new HashMap<>();
+        private ToolSpeculator speculator;
+        private FastPathPolicy fastPathPolicy;
         
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(API_URL))
-            .header("Content-Type", "application/json")
-            .header("Authorization", "Bearer " + OPENCODEZEN_API_KEY)
-            .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-            .build();
+        private Builder() {
+        }
+        
+        /**
+         * Preferred HTTP version; HTTP/2 falls back to HTTP/1.1 when the server does not support it
+         */
+        public Builder httpVersion(HttpClient.Version httpVersion) {
+            this.httpVersion = httpVersion;
+            return this;
+        }
+        
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+        
+        /**
+         * Executor for the HTTP client's async work and response handling
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+        
+        /**
+         * Use a fixed pool of daemon threads as the executor
+         */
+        public Builder executorThreads(int threads) {
+            return executor(Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "llm-tool-caller-http");
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+        
+        /**
+         * How long to wait for the response headers of an LLM call (no limit by default)
+         */
+        public Builder llmRequestTimeout(Duration llmRequestTimeout) {
+            this.llmRequestTimeout = llmRequestTimeout;
+            return this;
+        }
+        
+        /**
+         * How long to wait for the response headers of a tool's HTTP call (no limit by default)
+         */
+        public Builder toolRequestTimeout(Duration toolRequestTimeout) {
+            this.toolRequestTimeout = toolRequestTimeout;
+            return this;
+        }
+        
+        /**
+         * Use this client for OpenCodeZen calls instead of building one
+         */
+        public Builder llmHttpClient(HttpClient llmHttpClient) {
+            this.llmHttpClient = llmHttpClient;
+            return this;
+        }
         
-        HttpResponse<String> response = httpClient.send(request, 
-            HttpResponse.BodyHandlers.ofString());
+        /**
+         * Use this client for tool calls (e.g. SWAPI) instead of building one
+         */
+        public Builder toolHttpClient(HttpClient toolHttpClient) {
+            this.toolHttpClient = toolHttpClient;
+            return this;
+        }
+        
+        /**
+         * Gzip request bodies sent to the LLM endpoint (off by default; the server must accept
+         * Content-Encoding: gzip)
+         */
+        public Builder compressRequests(boolean compressRequests) {
+            this.compressRequests = compressRequests;
+            return this;
+        }
+        
+        /**
+         * Request bodies smaller than this many bytes are sent uncompressed
+         */
+        public Builder compressionThreshold(int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+            return this;
+        }
+        
+        /**
+         * Advertise gzip/deflate in Accept-Encoding for LLM responses (on by default)
+         */
+        public Builder acceptCompressedResponses(boolean acceptCompressedResponses) {
+            this.acceptCompressedResponses = acceptCompressedResponses;
+            return this;
+        }
+        
+        /**
+         * Hedge slow LLM requests with a duplicate (off by default)
+         */
+        public Builder hedging(HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+        
+        /**
+         * Retry policy for LLM calls ({@link RetryPolicy#defaults()} unless set;
+         * use {@link RetryPolicy#none()} to disable retries)
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+        
+        /**
+         * Client-side request and token rate limits for the API key (off by default)
+         */
+        public Builder rateLimit(RateLimitPolicy rateLimitPolicy) {
+            this.rateLimitPolicy = rateLimitPolicy;
+            return this;
+        }
+        
+        /**
+         * Offer the {@link Tool}-annotated methods of these objects alongside the built-in tools
+         */
+        public Builder tools(Object... holders) {
+            toolHolders.addAll(List.of(holders));
+            return this;
+        }
+        
+        /**
+         * Tokenizer for prompt budgets and rate limiting (about four characters per
+         * token unless set; see {@link BpeTokenizer#load})
+         */
+        public Builder tokenizer(Tokenizer tokenizer) {
+            this.tokenizer = tokenizer;
+            return this;
+        }
+        
+        /**
+         * Reject or trim requests whose prompt exceeds the budget before they are sent (off by default)
+         */
+        public Builder promptBudget(PromptBudget promptBudget) {
+            this.promptBudget = promptBudget;
+            return this;
+        }
         
-        if (response.statusCode() != 200) {
-            throw new IOException("API Error: " + response.statusCode() + " - " + response.body());
+        /**
+         * Cap on the completion tokens of each LLM call (the server default if unset);
+         * the rate limiter reserves this many output tokens per request
+         */
+        public Builder maxTokens(int maxTokens) {
+            if (maxTokens <= 0) {
+                throw new IllegalArgumentException("maxTokens must be positive: " + maxTokens);
+            }
+            this.maxTokens = maxTokens;
+            return this;
+        }
+        
+        /**
+         * How many tool calls of one turn may run at the same time (4 by default; 1 runs them in sequence)
+         */
+        public Builder maxParallelTools(int maxParallelTools) {
+            if (maxParallelTools <= 0) {
+                throw new IllegalArgumentException("maxParallelTools must be positive: " + maxParallelTools);
+            }
+            this.maxParallelTools = maxParallelTools;
+            return this;
+        }
+        
+        /**
+         * Deadline for one tool invocation, after which the model gets a timeout result (30 seconds by default)
+         */
+        public Builder toolTimeout(Duration toolTimeout) {
+            this.toolTimeout = requirePositive(toolTimeout, "toolTimeout");
+            return this;
+        }
+        
+        /**
+         * Deadline for invocations of one tool, overriding toolTimeout
+         */
+        public Builder toolTimeout(String toolName, Duration toolTimeout) {
+            toolTimeouts.put(toolName, requirePositive(toolTimeout, "toolTimeout for " + toolName));
+            return this;
+        }
+        
+        /**
+         * Prefetch the tool calls this speculator predicts while the first LLM call is in flight
+         */
+        public Builder speculator(ToolSpeculator speculator) {
+            this.speculator = speculator;
+            return this;
         }
         
-        return response.body();
+        /**
+         * Answer messages the policy's routes recognize straight from a tool, without the LLM
+         */
+        public Builder fastPath(FastPathPolicy fastPathPolicy) {
+            this.fastPathPolicy = fastPathPolicy;
+            return this;
+        }
+        
+        private static Duration requirePositive(Duration duration, String name) {
+            if (duration == null || duration.isZero() || duration.isNegative()) {
+                throw new IllegalArgumentException(name + " must be positive: " + duration);
+            }
+            return duration;
+        }
+        
+        public LLMToolCaller build() {
+            return new LLMToolCaller(this);
+        }
+        
+        private HttpClient buildHttpClient() {
+            HttpClient.Builder client = HttpClient.newBuilder()
+                .version(httpVersion)
+                .connectTimeout(connectTimeout);
+            if (executor != null) {
+                client.executor(executor);
+            }
+            return client.build();
+        }
     }
 }
@@ -0,0 +1,173 @@
+package com.example.llmtools;
+
+import java.io.IOException;
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * One chat message: a user prompt, an assistant turn (optionally carrying
+ * tool calls) or a tool result answering one of those calls
+ */
+@JsonPropertyOrder({ "role", "content", "tool_calls", "tool_call_id" })
+public final class Message {
+    
+    /**
+     * Tokens the chat format adds around every message
+     */
+    static final int OVERHEAD_TOKENS = 4;
+    
+    /**
+     * Tokens the chat format adds around every tool call
+     */
+    private static final int TOOL_CALL_OVERHEAD_TOKENS = 3;
+    
+    private final String role;
+    private final String content;
+    private final ToolResult result;
+    private final List<ToolCall> toolCalls;
+    private final String toolCallId;
+    
+    private Message(String role, String content, ToolResult result, List<ToolCall> toolCalls, String toolCallId) {
+        this.role = role;
+        this.content = content;
+        this.result = result;
+        this.toolCalls = toolCalls;
+        this.toolCallId = toolCallId;
+    }
+    
+    public static Message user(String content) {
+        return new Message("user", content, null, null, null);
+    }
+    
+    /**
+     * The assistant turn that requested the given tool calls
+     */
+    public static Message assistant(String content, List<ToolCall> toolCalls) {
+        return new Message("assistant", content, null, toolCalls.isEmpty() ? null : List.copyOf(toolCalls), null);
+    }
+    
+    public static Message tool(String toolCallId, String content) {
+        return new Message("tool", content, null, null, toolCallId);
+    }
+    
+    /**
+     * A tool message whose content is written by the result when the message is encoded
+     */
+    public static Message tool(String toolCallId, ToolResult result) {
+        return new Message("tool", null, result, null, toolCallId);
+    }
+    
+    @JsonProperty("role")
+    public String role() {
+        return role;
+    }
+    
+    /**
+     * The message text, or null for an assistant turn with only tool calls.
+     * For a tool message backed by a ToolResult the text is rendered on each call.
+     */
+    public String content() {
+        return result != null ? ToolResultSink.render(result) : content;
+    }
+    
+    /**
+     * The content as written: the text, or the ToolResult streamed into the generator
+     */
+    @JsonProperty("content")
+    @JsonSerialize(using = ContentSerializer.class)
+    Object contentValue() {
+        return result != null ? result : content;
+    }
+    
+    /**
+     * Tool calls of an assistant turn, null otherwise
+     */
+    @JsonProperty("tool_calls")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonSerialize(contentUsing = ToolCallSerializer.class)
+    public List<ToolCall> toolCalls() {
+        return toolCalls;
+    }
+    
+    /**
+     * The call a tool message answers, null for other roles
+     */
+    @JsonProperty("tool_call_id")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String toolCallId() {
+        return toolCallId;
+    }
+    
+    /**
+     * Prompt tokens this message adds to a request
+     */
+    int countTokens(Tokenizer tokenizer) {
+        int tokens = OVERHEAD_TOKENS;
+        if (result != null) {
+            tokens += ToolResultSink.countTokens(result, tokenizer);
+        } else if (content != null) {
+            tokens += tokenizer.countTokens(content);
+        }
+        if (toolCalls != null) {
+            for (ToolCall toolCall : toolCalls) {
+                tokens += TOOL_CALL_OVERHEAD_TOKENS + tokenizer.countTokens(toolCall.name())
+                    + tokenizer.countTokens(toolCall.arguments());
+            }
+        }
+        return tokens;
+    }
+    
+    @Override
+    public String toString() {
+        return "Message{role=" + role + ", content=" + content() + ", toolCalls=" + toolCalls
+            + ", toolCallId=" + toolCallId + "}";
+    }
+    
+    static final class ContentSerializer extends StdSerializer<Object> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        ContentSerializer() {
+            super(Object.class);
+        }
+        
+        @Override
+        public void serialize(Object value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (value instanceof ToolResult) {
+                ToolResultSink.write((ToolResult) value, gen);
+            } else {
+                gen.writeString((String) value);
+            }
+        }
+    }
+    
+    /**
+     * Writes a tool call in the wire shape: {"id", "type": "function", "function": {"name", "arguments"}}
+     */
+    static final class ToolCallSerializer extends StdSerializer<ToolCall> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        ToolCallSerializer() {
+            super(ToolCall.class);
+        }
+        
+        @Override
+        public void serialize(ToolCall toolCall, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("id", toolCall.id());
+            gen.writeStringField("type", "function");
+            gen.writeObjectFieldStart("function");
+            gen.writeStringField("name", toolCall.name());
+            gen.writeStringField("arguments", toolCall.arguments());
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+    }
+}
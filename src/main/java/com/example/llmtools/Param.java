@@ -0,0 +1,36 @@
+package com.example.llmtools;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Describes one parameter of a {@link Tool} method.
+ *
+ * Supported types are String (JSON string), int/long and their boxes (integer),
+ * double/float and their boxes (number) and boolean/Boolean (boolean).
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Param {
+    
+    /**
+     * The argument name in the tool's JSON schema
+     */
+    String name();
+    
+    String description() default "";
+    
+    /**
+     * Allowed values, written as the schema's enum (String parameters only)
+     */
+    String[] allowed() default {};
+    
+    /**
+     * Optional parameters must have a reference type; they are bound to null when absent
+     */
+    boolean required() default true;
+}
@@ -0,0 +1,120 @@
+package com.example.llmtools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Upper bound on the prompt tokens of each LLM request, counted locally with
+ * the configured {@link Tokenizer} before anything is sent.
+ *
+ * Requests over the limit fail with a {@link PromptTooLargeException}. When
+ * trimToolResults is on (the default), the follow-up request first shortens
+ * the largest tool results so that it fits, marking each cut.
+ */
+public final class PromptBudget {
+    
+    private static final String TRUNCATION_MARKER = "\n[truncated]";
+    
+    private final int maxPromptTokens;
+    private final boolean trimToolResults;
+    
+    private PromptBudget(Builder builder) {
+        this.maxPromptTokens = builder.maxPromptTokens;
+        this.trimToolResults = builder.trimToolResults;
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    public int maxPromptTokens() {
+        return maxPromptTokens;
+    }
+    
+    public boolean trimToolResults() {
+        return trimToolResults;
+    }
+    
+    /**
+     * Reject a request whose prompt is over the budget
+     */
+    void check(int promptTokens) throws PromptTooLargeException {
+        if (promptTokens > maxPromptTokens) {
+            throw new PromptTooLargeException(promptTokens, maxPromptTokens);
+        }
+    }
+    
+    /**
+     * Shorten tool results so together they fit in the available tokens. Each
+     * result gets an equal share; results smaller than their share keep their
+     * full text and leave the rest to the larger ones.
+     */
+    List<Message> trim(List<Message> toolResults, int available, Tokenizer tokenizer) {
+        int count = toolResults.size();
+        int[] tokens = new int[count];
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            tokens[i] = toolResults.get(i).countTokens(tokenizer);
+            total += tokens[i];
+        }
+        if (total <= available) {
+            return toolResults;
+        }
+        
+        // Hand out the budget smallest first
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> tokens[i]));
+        
+        List<Message> trimmed = new ArrayList<>(toolResults);
+        int remaining = Math.max(available, 0);
+        for (int k = 0; k < count; k++) {
+            int i = order[k];
+            int share = remaining / (count - k);
+            if (tokens[i] <= share) {
+                remaining -= tokens[i];
+                continue;
+            }
+            
+            Message result = toolResults.get(i);
+            String content = result.content();
+            int contentTokens = share - Message.OVERHEAD_TOKENS - tokenizer.countTokens(TRUNCATION_MARKER);
+            String kept = contentTokens > 0 ? content.substring(0, tokenizer.prefixLength(content, contentTokens)) : "";
+            trimmed.set(i, Message.tool(result.toolCallId(), kept + TRUNCATION_MARKER));
+            remaining -= share;
+        }
+        return trimmed;
+    }
+    
+    public static class Builder {
+        private int maxPromptTokens = 128_000;
+        private boolean trimToolResults = true;
+        
+        private Builder() {
+        }
+        
+        public Builder maxPromptTokens(int maxPromptTokens) {
+            if (maxPromptTokens <= 0) {
+                throw new IllegalArgumentException("maxPromptTokens must be positive: " + maxPromptTokens);
+            }
+            this.maxPromptTokens = maxPromptTokens;
+            return this;
+        }
+        
+        /**
+         * Shorten tool results to fit instead of rejecting the follow-up request
+         */
+        public Builder trimToolResults(boolean trimToolResults) {
+            this.trimToolResults = trimToolResults;
+            return this;
+        }
+        
+        public PromptBudget build() {
+            return new PromptBudget(this);
+        }
+    }
+}
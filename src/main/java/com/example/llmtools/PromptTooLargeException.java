@@ -0,0 +1,28 @@
+package com.example.llmtools;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request's prompt exceeds the {@link PromptBudget}; nothing was sent
+ */
+public class PromptTooLargeException extends IOException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final int promptTokens;
+    private final int maxPromptTokens;
+    
+    public PromptTooLargeException(int promptTokens, int maxPromptTokens) {
+        super("Prompt too large: " + promptTokens + " tokens, budget is " + maxPromptTokens);
+        this.promptTokens = promptTokens;
+        this.maxPromptTokens = maxPromptTokens;
+    }
+    
+    public int promptTokens() {
+        return promptTokens;
+    }
+    
+    public int maxPromptTokens() {
+        return maxPromptTokens;
+    }
+}
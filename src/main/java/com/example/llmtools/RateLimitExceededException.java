@@ -0,0 +1,26 @@
+package com.example.llmtools;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Thrown when a call would have to wait longer than the rate limiter allows
+ */
+public class RateLimitExceededException extends IOException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final Duration requiredWait;
+    
+    public RateLimitExceededException(Duration requiredWait) {
+        super("Rate limit exceeded: capacity available in " + requiredWait.toMillis() + " ms");
+        this.requiredWait = requiredWait;
+    }
+    
+    /**
+     * How long the call would have had to wait for capacity
+     */
+    public Duration requiredWait() {
+        return requiredWait;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.llmtools;
+
+import java.time.Duration;
+
+/**
+ * Client-side limits for the OpenCodeZen key: requests per minute and
+ * estimated tokens per minute (prompt plus maximum output).
+ *
+ * Calls over the limit wait for capacity for up to maxQueueWait and are then
+ * rejected with a {@link RateLimitExceededException}; a zero wait rejects
+ * immediately. The limits are recalibrated from the provider's
+ * x-ratelimit-* response headers when they are present.
+ */
+public final class RateLimitPolicy {
+    
+    private final double requestsPerMinute;
+    private final double tokensPerMinute;
+    private final int defaultMaxOutputTokens;
+    private final Duration maxQueueWait;
+    
+    private RateLimitPolicy(Builder builder) {
+        this.requestsPerMinute = builder.requestsPerMinute;
+        this.tokensPerMinute = builder.tokensPerMinute;
+        this.defaultMaxOutputTokens = builder.defaultMaxOutputTokens;
+        this.maxQueueWait = builder.maxQueueWait;
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    public double requestsPerMinute() {
+        return requestsPerMinute;
+    }
+    
+    public double tokensPerMinute() {
+        return tokensPerMinute;
+    }
+    
+    public int defaultMaxOutputTokens() {
+        return defaultMaxOutputTokens;
+    }
+    
+    public Duration maxQueueWait() {
+        return maxQueueWait;
+    }
+    
+    public static class Builder {
+        private double requestsPerMinute = 60;
+        private double tokensPerMinute = 100_000;
+        private int defaultMaxOutputTokens = 1024;
+        private Duration maxQueueWait = Duration.ofSeconds(30);
+        
+        private Builder() {
+        }
+        
+        public Builder requestsPerMinute(double requestsPerMinute) {
+            if (requestsPerMinute <= 0) {
+                throw new IllegalArgumentException("requestsPerMinute must be positive: " + requestsPerMinute);
+            }
+            this.requestsPerMinute = requestsPerMinute;
+            return this;
+        }
+        
+        public Builder tokensPerMinute(double tokensPerMinute) {
+            if (tokensPerMinute <= 0) {
+                throw new IllegalArgumentException("tokensPerMinute must be positive: " + tokensPerMinute);
+            }
+            this.tokensPerMinute = tokensPerMinute;
+            return this;
+        }
+        
+        /**
+         * Output tokens assumed for requests that do not set max_tokens
+         */
+        public Builder defaultMaxOutputTokens(int defaultMaxOutputTokens) {
+            this.defaultMaxOutputTokens = defaultMaxOutputTokens;
+            return this;
+        }
+        
+        /**
+         * How long a call may wait for capacity before it is rejected
+         */
+        public Builder maxQueueWait(Duration maxQueueWait) {
+            this.maxQueueWait = maxQueueWait;
+            return this;
+        }
+        
+        public RateLimitPolicy build() {
+            return new RateLimitPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.llmtools;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the client-side rate limiter
+ */
+public class RateLimitStats {
+    
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queuedMillis = new LongAdder();
+    private final LongAdder calibrations = new LongAdder();
+    
+    void recordAdmitted(long waitMillis) {
+        admitted.increment();
+        if (waitMillis > 0) {
+            queued.increment();
+            queuedMillis.add(waitMillis);
+        }
+    }
+    
+    void recordRejected() {
+        rejected.increment();
+    }
+    
+    void recordCalibration() {
+        calibrations.increment();
+    }
+    
+    public long admitted() {
+        return admitted.sum();
+    }
+    
+    /**
+     * Admitted calls that had to wait for capacity
+     */
+    public long queued() {
+        return queued.sum();
+    }
+    
+    public long rejected() {
+        return rejected.sum();
+    }
+    
+    /**
+     * Total time admitted calls spent waiting
+     */
+    public long queuedMillis() {
+        return queuedMillis.sum();
+    }
+    
+    /**
+     * Responses whose rate-limit headers adjusted the limiter
+     */
+    public long calibrations() {
+        return calibrations.sum();
+    }
+    
+    @Override
+    public String toString() {
+        return "RateLimitStats{admitted=" + admitted() + ", queued=" + queued() + ", rejected=" + rejected()
+            + ", queuedMillis=" + queuedMillis() + ", calibrations=" + calibrations() + "}";
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.llmtools;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Two token buckets (requests and tokens per minute) guarding the LLM endpoint.
+ *
+ * Acquiring reserves capacity immediately, letting a bucket go negative, and
+ * returns a future that completes once the reservation is covered by refill.
+ * Later callers queue behind earlier ones in arrival order without holding a
+ * thread. Reservations that would wait longer than the policy allows are
+ * rejected instead.
+ */
+class RateLimiter {
+    
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|s|m|h)");
+    
+    private final RateLimitPolicy policy;
+    private final RateLimitStats stats;
+    private final Bucket requests;
+    private final Bucket tokens;
+    
+    RateLimiter(RateLimitPolicy policy, RateLimitStats stats) {
+        this.policy = policy;
+        this.stats = stats;
+        this.requests = new Bucket(policy.requestsPerMinute());
+        this.tokens = new Bucket(policy.tokensPerMinute());
+    }
+    
+    /**
+     * Estimated token cost of a request: the prompt estimate plus its output allowance
+     */
+    long estimateTokens(long promptTokens, long maxOutputTokens) {
+        return promptTokens + (maxOutputTokens > 0 ? maxOutputTokens : policy.defaultMaxOutputTokens());
+    }
+    
+    /**
+     * Reserve one request and the given number of tokens
+     */
+    CompletableFuture<Void> acquire(long tokenCost) {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            requests.refill(now);
+            tokens.refill(now);
+            waitNanos = Math.max(requests.nanosUntil(1), tokens.nanosUntil(Math.min(tokenCost, tokens.capacity)));
+            
+            if (waitNanos > policy.maxQueueWait().toNanos()) {
+                stats.recordRejected();
+                return CompletableFuture.failedFuture(new RateLimitExceededException(Duration.ofNanos(waitNanos)));
+            }
+            requests.available -= 1;
+            tokens.available -= tokenCost;
+        }
+        
+        stats.recordAdmitted(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        if (waitNanos == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> { },
+            CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS));
+    }
+    
+    /**
+     * Reserve one request and the given number of tokens only if they are
+     * available now, e.g. for a hedge that is pointless once it has to wait
+     */
+    boolean tryAcquire(long tokenCost) {
+        synchronized (this) {
+            long now = System.nanoTime();
+            requests.refill(now);
+            tokens.refill(now);
+            if (requests.nanosUntil(1) > 0 || tokens.nanosUntil(Math.min(tokenCost, tokens.capacity)) > 0) {
+                return false;
+            }
+            requests.available -= 1;
+            tokens.available -= tokenCost;
+        }
+        stats.recordAdmitted(0);
+        return true;
+    }
+    
+    /**
+     * Return tokens that were reserved but not used, once the real usage is known
+     */
+    synchronized void refund(long reservedTokens, long usedTokens) {
+        if (usedTokens < reservedTokens) {
+            tokens.available = Math.min(tokens.capacity, tokens.available + (reservedTokens - usedTokens));
+        }
+    }
+    
+    /**
+     * Recalibrate from the provider's rate limit headers, and back off on a 429
+     */
+    void observe(int statusCode, HttpHeaders headers) {
+        Optional<Double> requestLimit = number(headers, "x-ratelimit-limit-requests");
+        Optional<Double> tokenLimit = number(headers, "x-ratelimit-limit-tokens");
+        Optional<Double> remainingRequests = number(headers, "x-ratelimit-remaining-requests");
+        Optional<Double> remainingTokens = number(headers, "x-ratelimit-remaining-tokens");
+        Optional<Duration> requestReset = headers.firstValue("x-ratelimit-reset-requests").flatMap(RateLimiter::duration);
+        Optional<Duration> tokenReset = headers.firstValue("x-ratelimit-reset-tokens").flatMap(RateLimiter::duration);
+        
+        boolean calibrated = false;
+        synchronized (this) {
+            long now = System.nanoTime();
+            requests.refill(now);
+            tokens.refill(now);
+            
+            // Never allow more than the provider's limit, even if configured higher
+            if (requestLimit.isPresent() && requestLimit.get() < requests.capacity) {
+                requests.setPerMinute(requestLimit.get());
+                calibrated = true;
+            }
+            if (tokenLimit.isPresent() && tokenLimit.get() < tokens.capacity) {
+                tokens.setPerMinute(tokenLimit.get());
+                calibrated = true;
+            }
+            // The server's view of what is left wins when it is lower than ours
+            if (remainingRequests.isPresent() && remainingRequests.get() < requests.available) {
+                requests.available = remainingRequests.get();
+                calibrated = true;
+            }
+            if (remainingTokens.isPresent() && remainingTokens.get() < tokens.available) {
+                tokens.available = remainingTokens.get();
+                calibrated = true;
+            }
+            if (statusCode == 429) {
+                // Nothing left until the window resets
+                requests.drain(requestReset.orElse(Duration.ofSeconds(1)));
+                if (tokenReset.isPresent()) {
+                    tokens.drain(tokenReset.get());
+                }
+                calibrated = true;
+            }
+        }
+        if (calibrated) {
+            stats.recordCalibration();
+        }
+    }
+    
+    private static Optional<Double> number(HttpHeaders headers, String name) {
+        return headers.firstValue(name).flatMap(value -> {
+            try {
+                return Optional.of(Double.parseDouble(value.trim()));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        });
+    }
+    
+    /**
+     * Parse reset durations such as "1s", "6m0s", "250ms" or "1h2m3.5s"
+     */
+    static Optional<Duration> duration(String value) {
+        Matcher matcher = DURATION_PART.matcher(value.trim());
+        double millis = 0;
+        int end = 0;
+        while (matcher.find()) {
+            if (matcher.start() != end) {
+                return Optional.empty();
+            }
+            double amount = Double.parseDouble(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "ms":
+                    millis += amount;
+                    break;
+                case "s":
+                    millis += amount * 1_000;
+                    break;
+                case "m":
+                    millis += amount * 60_000;
+                    break;
+                default:
+                    millis += amount * 3_600_000;
+            }
+            end = matcher.end();
+        }
+        if (end == 0 || end != value.trim().length()) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofMillis((long) millis));
+    }
+    
+    /**
+     * A continuously refilled bucket holding up to one minute of capacity
+     */
+    private static class Bucket {
+        double capacity;
+        double available;
+        double perNano;
+        long lastRefill = System.nanoTime();
+        
+        Bucket(double perMinute) {
+            setPerMinute(perMinute);
+            this.available = capacity;
+        }
+        
+        void setPerMinute(double perMinute) {
+            capacity = perMinute;
+            perNano = perMinute / TimeUnit.MINUTES.toNanos(1);
+            available = Math.min(available, capacity);
+        }
+        
+        void refill(long now) {
+            available = Math.min(capacity, available + (now - lastRefill) * perNano);
+            lastRefill = now;
+        }
+        
+        long nanosUntil(double amount) {
+            double deficit = amount - available;
+            return deficit <= 0 ? 0 : (long) Math.ceil(deficit / perNano);
+        }
+        
+        /**
+         * Empty the bucket so it only has capacity again after the given time
+         */
+        void drain(Duration resetAfter) {
+            available = Math.min(available, -resetAfter.toNanos() * perNano);
+        }
+    }
+}
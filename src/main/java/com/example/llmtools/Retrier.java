@@ -0,0 +1,223 @@
+package com.example.llmtools;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.CharacterCodingException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.ZipException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+/**
+ * Runs async calls under a {@link RetryPolicy}
+ */
+class Retrier {
+    
+    /** The server did not act on the request; always safe to repeat */
+    private static final Set<Integer> UNPROCESSED_STATUSES = Set.of(408, 425, 429, 503);
+    
+    /** The server may have acted on the request; repeat only idempotent calls */
+    private static final Set<Integer> MAYBE_PROCESSED_STATUSES = Set.of(500, 502, 504);
+    
+    private static final double MAX_BUDGET = 10;
+    
+    private final RetryPolicy policy;
+    private final RetryStats stats;
+    private double budget = MAX_BUDGET;
+    
+    Retrier(RetryPolicy policy, RetryStats stats) {
+        this.policy = policy;
+        this.stats = stats;
+    }
+    
+    /**
+     * Run the call, retrying retryable failures after a backoff delay.
+     * Cancelling the returned future cancels the attempt in flight and stops
+     * any retry that is still scheduled.
+     */
+    <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call) {
+        depositBudget();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<T>> current = new AtomicReference<>();
+        result.whenComplete((value, error) -> {
+            CompletableFuture<T> inFlight = current.get();
+            if (result.isCancelled() && inFlight != null) {
+                inFlight.cancel(true);
+            }
+        });
+        attempt(call, 1, result, current);
+        return result;
+    }
+    
+    private <T> void attempt(
+        Supplier<CompletableFuture<T>> call,
+        int attempt,
+        CompletableFuture<T> result,
+        AtomicReference<CompletableFuture<T>> current
+    ) {
+        if (result.isDone()) {
+            // Cancelled while the retry was scheduled
+            return;
+        }
+        CompletableFuture<T> future = call.get();
+        current.set(future);
+        if (result.isCancelled()) {
+            future.cancel(true);
+            return;
+        }
+        
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            
+            Throwable cause = unwrap(error);
+            Optional<Duration> delay = retryDelay(cause, attempt);
+            if (delay.isEmpty()) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            
+            stats.recordRetry();
+            CompletableFuture.delayedExecutor(delay.get().toNanos(), TimeUnit.NANOSECONDS)
+                .execute(() -> attempt(call, attempt + 1, result, current));
+        });
+    }
+    
+    /**
+     * The delay before the next attempt, or empty when the failure must be surfaced
+     */
+    private Optional<Duration> retryDelay(Throwable cause, int attempt) {
+        if (!isRetryable(cause)) {
+            return Optional.empty();
+        }
+        if (attempt >= policy.maxAttempts()) {
+            stats.recordAttemptsExhausted();
+            return Optional.empty();
+        }
+        
+        Duration delay = backoff(attempt);
+        if (cause instanceof LLMApiException) {
+            Optional<Duration> retryAfter = retryAfter((LLMApiException) cause);
+            if (retryAfter.isPresent()) {
+                if (retryAfter.get().compareTo(policy.maxRetryAfter()) > 0) {
+                    // The server asked for a longer pause than we are willing to wait
+                    return Optional.empty();
+                }
+                if (retryAfter.get().compareTo(delay) > 0) {
+                    delay = retryAfter.get();
+                }
+            }
+        }
+        
+        if (!tryWithdrawBudget()) {
+            stats.recordBudgetExhausted();
+            return Optional.empty();
+        }
+        return Optional.of(delay);
+    }
+    
+    private boolean isRetryable(Throwable cause) {
+        if (cause instanceof LLMApiException) {
+            int status = ((LLMApiException) cause).statusCode();
+            return UNPROCESSED_STATUSES.contains(status)
+                || (policy.idempotent() && MAYBE_PROCESSED_STATUSES.contains(status));
+        }
+        if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+            // Never reached the server
+            return true;
+        }
+        // Timeouts and broken connections after the request went out
+        return policy.idempotent() && isTransportFailure(cause);
+    }
+    
+    /**
+     * Whether an IOException came from the connection rather than from the
+     * response itself. A malformed body or a broken compressed stream fails the
+     * same way every time, so it is not worth another attempt.
+     */
+    private static boolean isTransportFailure(Throwable cause) {
+        for (Throwable e = cause; e != null; e = e.getCause()) {
+            if (e instanceof JsonProcessingException || e instanceof ZipException
+                    || e instanceof CharacterCodingException) {
+                return false;
+            }
+        }
+        return cause instanceof HttpTimeoutException
+            || cause instanceof SocketException
+            || cause instanceof EOFException
+            || cause instanceof ClosedChannelException
+            // HttpClient reports resets and unexpected closes as plain IOExceptions
+            || cause.getClass() == IOException.class;
+    }
+    
+    /**
+     * Exponential backoff with full jitter: uniform in [0, min(maxDelay, base * 2^(attempt-1))]
+     */
+    private Duration backoff(int attempt) {
+        long base = policy.baseDelay().toMillis();
+        long ceiling = policy.maxDelay().toMillis();
+        long exponential = attempt >= 32 ? ceiling : Math.min(ceiling, base << (attempt - 1));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(exponential + 1));
+    }
+    
+    /**
+     * Parse Retry-After as delta-seconds or an HTTP date
+     */
+    static Optional<Duration> retryAfter(LLMApiException e) {
+        if (e.headers() == null) {
+            return Optional.empty();
+        }
+        Optional<String> header = e.headers().firstValue("Retry-After");
+        if (header.isEmpty()) {
+            return Optional.empty();
+        }
+        String value = header.get().trim();
+        try {
+            return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(value))));
+        } catch (NumberFormatException notSeconds) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration wait = Duration.between(ZonedDateTime.now(date.getZone()), date);
+                return Optional.of(wait.isNegative() ? Duration.ZERO : wait);
+            } catch (DateTimeParseException notDate) {
+                return Optional.empty();
+            }
+        }
+    }
+    
+    private synchronized void depositBudget() {
+        budget = Math.min(MAX_BUDGET, budget + policy.budgetRatio());
+    }
+    
+    private synchronized boolean tryWithdrawBudget() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        return true;
+    }
+    
+    private static Throwable unwrap(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+}
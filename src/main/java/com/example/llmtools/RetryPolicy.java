@@ -0,0 +1,142 @@
+package com.example.llmtools;
+
+import java.time.Duration;
+
+/**
+ * Settings for retrying failed LLM calls.
+ *
+ * Delays use exponential backoff with full jitter (a random delay between
+ * zero and the backoff ceiling), stretched to honour a Retry-After header.
+ * Only failures the server cannot have acted on (429, 503, 408, 425 and
+ * connection failures) are retried unless the call is marked idempotent, in
+ * which case 500/502/504 and broken exchanges are retried too. A retry budget
+ * limits retries to a fraction of requests so they cannot amplify an outage.
+ */
+public final class RetryPolicy {
+    
+    private final int maxAttempts;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+    private final Duration maxRetryAfter;
+    private final boolean idempotent;
+    private final double budgetRatio;
+    
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.baseDelay = builder.baseDelay;
+        this.maxDelay = builder.maxDelay;
+        this.maxRetryAfter = builder.maxRetryAfter;
+        this.idempotent = builder.idempotent;
+        this.budgetRatio = builder.budgetRatio;
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * The default policy: 3 attempts, 250ms base delay, 10% retry budget
+     */
+    public static RetryPolicy defaults() {
+        return builder().build();
+    }
+    
+    /**
+     * A policy that never retries
+     */
+    public static RetryPolicy none() {
+        return builder().maxAttempts(1).build();
+    }
+    
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+    
+    public Duration baseDelay() {
+        return baseDelay;
+    }
+    
+    public Duration maxDelay() {
+        return maxDelay;
+    }
+    
+    public Duration maxRetryAfter() {
+        return maxRetryAfter;
+    }
+    
+    public boolean idempotent() {
+        return idempotent;
+    }
+    
+    public double budgetRatio() {
+        return budgetRatio;
+    }
+    
+    public static class Builder {
+        private int maxAttempts = 3;
+        private Duration baseDelay = Duration.ofMillis(250);
+        private Duration maxDelay = Duration.ofSeconds(10);
+        private Duration maxRetryAfter = Duration.ofSeconds(60);
+        private boolean idempotent = true;
+        private double budgetRatio = 0.1;
+        
+        private Builder() {
+        }
+        
+        /**
+         * Total attempts including the first one
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1: " + maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+        
+        public Builder baseDelay(Duration baseDelay) {
+            this.baseDelay = baseDelay;
+            return this;
+        }
+        
+        /**
+         * Ceiling for the backoff before jitter
+         */
+        public Builder maxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+        
+        /**
+         * A Retry-After longer than this fails the call instead of waiting
+         */
+        public Builder maxRetryAfter(Duration maxRetryAfter) {
+            this.maxRetryAfter = maxRetryAfter;
+            return this;
+        }
+        
+        /**
+         * Whether the call may be repeated after the server might have processed it.
+         * Chat completions have no side effects, so this is on by default.
+         */
+        public Builder idempotent(boolean idempotent) {
+            this.idempotent = idempotent;
+            return this;
+        }
+        
+        /**
+         * Retries allowed as a fraction of requests, e.g. 0.1 for at most 10% extra calls
+         */
+        public Builder budgetRatio(double budgetRatio) {
+            if (budgetRatio < 0) {
+                throw new IllegalArgumentException("budgetRatio must not be negative: " + budgetRatio);
+            }
+            this.budgetRatio = budgetRatio;
+            return this;
+        }
+        
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.llmtools;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for retried LLM calls
+ */
+public class RetryStats {
+    
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+    private final LongAdder attemptsExhausted = new LongAdder();
+    
+    void recordRetry() {
+        retries.increment();
+    }
+    
+    void recordBudgetExhausted() {
+        budgetExhausted.increment();
+    }
+    
+    void recordAttemptsExhausted() {
+        attemptsExhausted.increment();
+    }
+    
+    public long retries() {
+        return retries.sum();
+    }
+    
+    /**
+     * Retryable failures that were not retried because the retry budget was empty
+     */
+    public long budgetExhausted() {
+        return budgetExhausted.sum();
+    }
+    
+    /**
+     * Calls that failed after using all their attempts
+     */
+    public long attemptsExhausted() {
+        return attemptsExhausted.sum();
+    }
+    
+    @Override
+    public String toString() {
+        return "RetryStats{retries=" + retries() + ", budgetExhausted=" + budgetExhausted()
+            + ", attemptsExhausted=" + attemptsExhausted() + "}";
+    }
+}
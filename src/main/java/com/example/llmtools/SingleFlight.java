@@ -0,0 +1,94 @@
+package com.example.llmtools;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls with the same key into one execution whose
+ * result every caller shares. A key is only shared while its call is in
+ * flight; nothing is cached after it completes.
+ *
+ * Each caller gets its own future, so one caller giving up (e.g. on a
+ * timeout) leaves the others waiting; the shared call is cancelled once
+ * every caller has given up on it.
+ */
+final class SingleFlight<K, V> {
+    
+    private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    
+    CompletableFuture<V> run(K key, Supplier<CompletableFuture<V>> task) {
+        Flight<V> flight = new Flight<>();
+        Flight<V> leader = flights.putIfAbsent(key, flight);
+        if (leader != null && leader.join()) {
+            return leader.follow();
+        }
+        if (leader != null) {
+            // The leader's callers all gave up; start afresh
+            flights.replace(key, leader, flight);
+        }
+        
+        // Register before starting, so a call that completes at once still finds its waiter
+        flight.join();
+        CompletableFuture<V> result = flight.follow();
+        flight.result.whenComplete((value, error) -> flights.remove(key, flight));
+        
+        CompletableFuture<V> started;
+        try {
+            started = task.get();
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        started.whenComplete((value, error) -> {
+            if (error != null) {
+                flight.result.completeExceptionally(error);
+            } else {
+                flight.result.complete(value);
+            }
+        });
+        
+        CompletableFuture<V> running = started;
+        flight.result.whenComplete((value, error) -> {
+            if (error != null) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+    
+    private static final class Flight<V> {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        private int waiters;
+        
+        /**
+         * Count one more caller, unless the call has already been abandoned
+         */
+        synchronized boolean join() {
+            if (result.isCancelled()) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+        
+        CompletableFuture<V> follow() {
+            CompletableFuture<V> copy = result.copy();
+            copy.whenComplete((value, error) -> {
+                if (error != null && !result.isDone()) {
+                    leave();
+                }
+            });
+            return copy;
+        }
+        
+        /**
+         * Drop one caller; the last one out cancels the call. Cancelling under
+         * the lock keeps join from counting a caller in just before it.
+         */
+        private synchronized void leave() {
+            if (--waiters == 0) {
+                result.cancel(true);
+            }
+        }
+    }
+}
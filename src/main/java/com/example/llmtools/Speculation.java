@@ -0,0 +1,166 @@
+package com.example.llmtools;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The prefetched tool calls of one conversation, plus results already known
+ * from the fast path. Each can be claimed once by a matching tool call;
+ * discard cancels the rest.
+ */
+final class Speculation {
+    
+    private static final Speculation NONE = new Speculation(null);
+    
+    private final SpeculationStats stats;
+    private final List<Prefetch> prefetches = new ArrayList<>();
+    private boolean discarded;
+    
+    private Speculation(SpeculationStats stats) {
+        this.stats = stats;
+    }
+    
+    /**
+     * A speculation with nothing prefetched
+     */
+    static Speculation none() {
+        return NONE;
+    }
+    
+    /**
+     * Start the speculator's predictions for this message. A speculator that
+     * fails only costs the prefetch, never the conversation. Each prefetch
+     * gets its tool's deadline, so one that is never claimed cannot outlive it.
+     */
+    static Speculation start(
+        ToolSpeculator speculator,
+        String userMessage,
+        ToolRegistry registry,
+        Function<String, Duration> toolTimeouts,
+        SpeculationStats stats
+    ) {
+        List<ToolCall> predictions;
+        try {
+            predictions = speculator.predict(userMessage);
+        } catch (RuntimeException e) {
+            return NONE;
+        }
+        if (predictions == null || predictions.isEmpty()) {
+            return NONE;
+        }
+        
+        Speculation speculation = new Speculation(stats);
+        for (ToolCall prediction : predictions) {
+            ToolMethod tool = registry.find(prediction.name());
+            List<Object> key = tool != null && tool.idempotent() ? tool.argumentKey(prediction.arguments()) : null;
+            if (key == null || speculation.find(tool, key) != null) {
+                stats.recordSkipped();
+                continue;
+            }
+            
+            stats.recordPrefetched();
+            CompletableFuture<ToolResult> result = tool.invoke(prediction.arguments())
+                .orTimeout(toolTimeouts.apply(tool.name()).toMillis(), TimeUnit.MILLISECONDS);
+            speculation.prefetches.add(new Prefetch(tool, key, result, true));
+        }
+        return speculation;
+    }
+    
+    /**
+     * Offer a finished invocation, e.g. from the fast path, to a matching call.
+     * Only one that succeeded is offered, so a timeout or rejection is not
+     * replayed; it is not counted as a prediction.
+     *
+     * @return this speculation, or a new one if this is the shared empty one
+     */
+    Speculation reuse(ToolMethod tool, String arguments, CompletableFuture<ToolResult> invocation) {
+        if (tool == null || invocation == null || !invocation.isDone() || invocation.isCompletedExceptionally()) {
+            return this;
+        }
+        List<Object> key = tool.argumentKey(arguments);
+        if (key == null) {
+            return this;
+        }
+        Speculation speculation = this == NONE ? new Speculation(null) : this;
+        synchronized (speculation) {
+            speculation.prefetches.add(new Prefetch(tool, key, invocation, false));
+        }
+        return speculation;
+    }
+    
+    /**
+     * The prefetched result for this call, or null on a miss. A prefetch that
+     * already failed is treated as a miss so the call runs afresh.
+     */
+    synchronized CompletableFuture<ToolResult> claim(ToolMethod tool, String arguments) {
+        if (prefetches.isEmpty() || tool == null) {
+            return null;
+        }
+        Prefetch prefetch = find(tool, tool.argumentKey(arguments));
+        if (prefetch == null) {
+            return null;
+        }
+        
+        prefetches.remove(prefetch);
+        if (prefetch.result.isCompletedExceptionally()) {
+            if (prefetch.predicted) {
+                stats.recordMiss();
+            }
+            return null;
+        }
+        if (prefetch.predicted) {
+            stats.recordHit();
+        }
+        return prefetch.result;
+    }
+    
+    /**
+     * Cancel every prefetch that was not claimed; later claims all miss
+     */
+    synchronized void discard() {
+        if (discarded) {
+            return;
+        }
+        discarded = true;
+        for (Prefetch prefetch : prefetches) {
+            if (prefetch.predicted) {
+                stats.recordMiss();
+            }
+            prefetch.result.cancel(true);
+        }
+        prefetches.clear();
+    }
+    
+    private Prefetch find(ToolMethod tool, List<Object> key) {
+        if (key == null) {
+            return null;
+        }
+        for (Prefetch prefetch : prefetches) {
+            if (prefetch.tool == tool && prefetch.key.equals(key)) {
+                return prefetch;
+            }
+        }
+        return null;
+    }
+    
+    private static final class Prefetch {
+        final ToolMethod tool;
+        final List<Object> key;
+        final CompletableFuture<ToolResult> result;
+        final boolean predicted;
+        
+        /**
+         * @param predicted started for a speculator's prediction, and so counted in the stats
+         */
+        Prefetch(ToolMethod tool, List<Object> key, CompletableFuture<ToolResult> result, boolean predicted) {
+            this.tool = tool;
+            this.key = key;
+            this.result = result;
+            this.predicted = predicted;
+        }
+    }
+}
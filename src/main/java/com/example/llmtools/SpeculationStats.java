@@ -0,0 +1,73 @@
+package com.example.llmtools;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for speculative tool prefetches
+ */
+public class SpeculationStats {
+    
+    private final LongAdder prefetched = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    
+    void recordPrefetched() {
+        prefetched.increment();
+    }
+    
+    void recordHit() {
+        hits.increment();
+    }
+    
+    void recordMiss() {
+        misses.increment();
+    }
+    
+    void recordSkipped() {
+        skipped.increment();
+    }
+    
+    /**
+     * Predicted tool calls started ahead of the model's answer
+     */
+    public long prefetched() {
+        return prefetched.sum();
+    }
+    
+    /**
+     * Prefetches the model asked for, whose results were used
+     */
+    public long hits() {
+        return hits.sum();
+    }
+    
+    /**
+     * Prefetches the model did not ask for, cancelled and discarded
+     */
+    public long misses() {
+        return misses.sum();
+    }
+    
+    /**
+     * Predictions not prefetched: unknown or non-idempotent tools, or invalid arguments
+     */
+    public long skipped() {
+        return skipped.sum();
+    }
+    
+    /**
+     * Share of settled prefetches that were hits, or 0 before any settled
+     */
+    public double hitRate() {
+        long hits = hits();
+        long settled = hits + misses();
+        return settled == 0 ? 0 : (double) hits / settled;
+    }
+    
+    @Override
+    public String toString() {
+        return "SpeculationStats{prefetched=" + prefetched() + ", hits=" + hits() + ", misses=" + misses()
+            + ", skipped=" + skipped() + ", hitRate=" + String.format("%.2f", hitRate()) + "}";
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.llmtools;
+
+/**
+ * Counts prompt tokens locally, so request sizes can be checked before they
+ * are sent
+ */
+public interface Tokenizer {
+    
+    int countTokens(CharSequence text);
+    
+    /**
+     * Length in chars of the longest prefix of text that fits in maxTokens tokens
+     */
+    int prefixLength(CharSequence text, int maxTokens);
+    
+    /**
+     * The fallback used when no vocabulary is loaded: about four characters per token
+     */
+    static Tokenizer estimating() {
+        return EstimatingTokenizer.INSTANCE;
+    }
+}
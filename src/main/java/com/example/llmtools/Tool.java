@@ -0,0 +1,53 @@
+package com.example.llmtools;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method as a tool the LLM can call.
+ *
+ * The method must return String or {@link ToolResult}, or a
+ * CompletableFuture of either, and every
+ * parameter must carry {@link Param}. Its JSON schema is derived from the
+ * parameter types when the holder is registered.
+ *
+ * maxConcurrent puts the tool behind a bulkhead so a slow tool cannot take
+ * over the caller; dedicatedExecutor additionally keeps a blocking method off
+ * the threads that run every other tool.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Tool {
+    
+    /**
+     * The function name the LLM uses to call the tool
+     */
+    String name();
+    
+    String description();
+    
+    /**
+     * How many invocations may run at once; further calls wait their turn (0, the default, means no limit)
+     */
+    int maxConcurrent() default 0;
+    
+    /**
+     * How many invocations may wait for a slot before new ones are rejected
+     */
+    int maxQueued() default 64;
+    
+    /**
+     * Run the method on its own pool of maxConcurrent threads instead of the calling thread
+     */
+    boolean dedicatedExecutor() default false;
+    
+    /**
+     * Whether identical calls may share one execution: concurrent calls with the
+     * same arguments are collapsed into one (false by default, for tools with side effects)
+     */
+    boolean idempotent() default false;
+}
@@ -0,0 +1,15 @@
+package com.example.llmtools;
+
+/**
+ * The arguments the LLM produced for a tool call do not match the tool's
+ * schema. The message says which argument is wrong and why, so it can be
+ * returned to the model as the tool result.
+ */
+public class ToolArgumentException extends IllegalArgumentException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public ToolArgumentException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.llmtools;
+
+/**
+ * A tool call requested by the LLM: the call id, the function name and its
+ * arguments as the raw JSON string the model produced
+ */
+public final class ToolCall {
+    
+    private final String id;
+    private final String name;
+    private final String arguments;
+    
+    public ToolCall(String id, String name, String arguments) {
+        this.id = id;
+        this.name = name;
+        this.arguments = arguments;
+    }
+    
+    public String id() {
+        return id;
+    }
+    
+    public String name() {
+        return name;
+    }
+    
+    public String arguments() {
+        return arguments;
+    }
+    
+    @Override
+    public String toString() {
+        return "ToolCall{id=" + id + ", name=" + name + ", arguments=" + arguments + "}";
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.llmtools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Rebuilds tool calls from streamed tool_call deltas.
+ *
+ * Each call's function.arguments arrives as a series of string fragments. The
+ * assembler scans the fragments as they come in and, as soon as one call's
+ * arguments form a complete JSON value, hands it to the dispatcher. Tool
+ * execution therefore overlaps with the rest of the generation instead of
+ * waiting for the whole response.
+ */
+class ToolCallAssembler {
+    
+    private final BiFunction<String, String, CompletableFuture<ToolResult>> dispatcher;
+    private final Map<Integer, PendingCall> calls = new TreeMap<>();
+    
+    /**
+     * @param dispatcher runs a tool given its name and argument JSON, or null to only assemble
+     */
+    ToolCallAssembler(BiFunction<String, String, CompletableFuture<ToolResult>> dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+    
+    /**
+     * Apply one element of a delta's tool_calls array
+     */
+    void accept(JsonNode toolCallDelta) {
+        int index = toolCallDelta.path("index").asInt(calls.size());
+        PendingCall call = calls.computeIfAbsent(index, i -> new PendingCall());
+        
+        if (toolCallDelta.hasNonNull("id")) {
+            call.id = toolCallDelta.get("id").asText();
+        }
+        
+        JsonNode functionDelta = toolCallDelta.get("function");
+        if (functionDelta == null) {
+            return;
+        }
+        if (functionDelta.hasNonNull("name")) {
+            call.name.append(functionDelta.get("name").asText());
+        }
+        if (functionDelta.hasNonNull("arguments")) {
+            if (call.appendArguments(functionDelta.get("arguments").asText())) {
+                dispatch(call);
+            }
+        }
+    }
+    
+    /**
+     * The assembled tool calls, in index order
+     */
+    List<ToolCall> toolCalls() {
+        List<ToolCall> toolCalls = new ArrayList<>(calls.size());
+        for (PendingCall call : calls.values()) {
+            toolCalls.add(new ToolCall(call.id, call.name.toString(), call.arguments.toString()));
+        }
+        return toolCalls;
+    }
+    
+    /**
+     * Wait for every call to finish and return the tool messages in call order.
+     * Calls whose arguments never completed mid-stream are dispatched now.
+     */
+    List<Message> awaitResults() {
+        for (PendingCall call : calls.values()) {
+            dispatch(call);
+        }
+        
+        List<Message> results = new ArrayList<>(calls.size());
+        for (PendingCall call : calls.values()) {
+            ToolResult result;
+            try {
+                result = call.result.join();
+            } catch (Exception e) {
+                result = ToolResult.of("Error executing tool: " + e.getMessage());
+            }
+            
+            results.add(Message.tool(call.id, result));
+        }
+        return results;
+    }
+    
+    private void dispatch(PendingCall call) {
+        if (call.result != null || dispatcher == null) {
+            return;
+        }
+        call.result = dispatcher.apply(call.name.toString(), call.arguments.toString());
+    }
+    
+    /**
+     * One tool call being assembled, with a small scanner that tracks JSON
+     * nesting so completion is detected without re-parsing the fragments
+     */
+    private static class PendingCall {
+        String id;
+        final StringBuilder name = new StringBuilder();
+        final StringBuilder arguments = new StringBuilder();
+        CompletableFuture<ToolResult> result;
+        
+        private boolean started;
+        private int depth;
+        private boolean inString;
+        private boolean escaped;
+        private boolean complete;
+        
+        /**
+         * Returns true once the arguments hold a complete object or array
+         */
+        boolean appendArguments(String fragment) {
+            arguments.append(fragment);
+            
+            for (int i = 0; i < fragment.length() && !complete; i++) {
+                char c = fragment.charAt(i);
+                
+                if (!started) {
+                    if (c == '{' || c == '[') {
+                        started = true;
+                        depth = 1;
+                    }
+                    continue;
+                }
+                
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == '"') {
+                        inString = false;
+                    }
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                    complete = depth == 0;
+                }
+            }
+            
+            return complete;
+        }
+    }
+}
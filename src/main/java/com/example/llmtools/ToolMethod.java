@@ -0,0 +1,361 @@
+package com.example.llmtools;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * One registered tool: its JSON definition, its parameters and an invoker
+ * that calls the tool method with an argument array.
+ *
+ * Tools in this package are built by the bindings classes generated at
+ * compile time, with a constant definition and a direct call as the invoker.
+ * Other holders go through {@link #of}, which derives both from the method
+ * by reflection.
+ */
+final class ToolMethod {
+    
+    /**
+     * Calls the tool method; returns its String, ToolResult or CompletionStage of either
+     */
+    interface Invoker {
+        Object invoke(Object[] args) throws Throwable;
+    }
+    
+    private final String name;
+    private final String definition;
+    private final ArgumentDecoder decoder;
+    private final Invoker invoker;
+    private final BulkheadStats bulkheadStats;
+    private final AsyncLimiter bulkhead;
+    private final ExecutorService executor;
+    private final SingleFlight<List<Object>, ToolResult> singleFlight;
+    
+    /**
+     * @param maxConcurrent invocations allowed at once, or 0 for no bulkhead
+     * @param maxQueued invocations allowed to wait when the bulkhead is full
+     * @param dedicatedExecutor run the method on a pool of maxConcurrent threads of its own
+     * @param idempotent let concurrent calls with equal arguments share one execution
+     */
+    ToolMethod(
+        String name,
+        String definition,
+        List<ToolParam> params,
+        int maxConcurrent,
+        int maxQueued,
+        boolean dedicatedExecutor,
+        boolean idempotent,
+        Invoker invoker
+    ) {
+        checkLimits(maxConcurrent, maxQueued, dedicatedExecutor);
+        this.name = name;
+        this.definition = definition;
+        this.decoder = new ArgumentDecoder(name, params);
+        this.invoker = invoker;
+        
+        if (maxConcurrent > 0) {
+            this.bulkheadStats = new BulkheadStats();
+            this.bulkhead = new AsyncLimiter(maxConcurrent, maxQueued, bulkheadStats);
+        } else {
+            this.bulkheadStats = null;
+            this.bulkhead = null;
+        }
+        
+        // Threads are only started by the first invocation
+        this.executor = dedicatedExecutor ? Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "llm-tool-" + name);
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        this.singleFlight = idempotent ? new SingleFlight<>() : null;
+    }
+    
+    /**
+     * The rules the annotation processor enforces at compile time, for tools built by reflection
+     */
+    private static void checkLimits(int maxConcurrent, int maxQueued, boolean dedicatedExecutor) {
+        if (maxConcurrent < 0) {
+            throw new IllegalArgumentException("maxConcurrent must not be negative: " + maxConcurrent);
+        }
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("maxQueued must not be negative: " + maxQueued);
+        }
+        if (dedicatedExecutor && maxConcurrent == 0) {
+            throw new IllegalArgumentException("A dedicated executor needs maxConcurrent to size its pool");
+        }
+    }
+    
+    /**
+     * Build the tool for an annotated method, bound to its holder unless the method is static
+     */
+    static ToolMethod of(Object holder, Method method, Tool tool, ObjectMapper objectMapper) {
+        Class<?> returnType = method.getReturnType();
+        if (returnType != String.class && returnType != ToolResult.class
+                && !CompletionStage.class.isAssignableFrom(returnType)) {
+            throw new IllegalArgumentException(
+                "Tool method must return String, ToolResult or a CompletableFuture of either: " + method);
+        }
+        
+        Parameter[] parameters = method.getParameters();
+        List<ToolParam> params = new ArrayList<>(parameters.length);
+        for (int i = 0; i < parameters.length; i++) {
+            Param param = parameters[i].getAnnotation(Param.class);
+            if (param == null) {
+                throw new IllegalArgumentException("Parameter " + i + " has no @Param: " + method);
+            }
+            params.add(ToolParam.of(param, parameters[i].getType(), method));
+        }
+        
+        MethodHandle handle;
+        try {
+            method.trySetAccessible();
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Tool method is not accessible: " + method, e);
+        }
+        if (!Modifier.isStatic(method.getModifiers())) {
+            handle = handle.bindTo(holder);
+        }
+        
+        // (Object[])Object, so every tool is invoked through the same exact call site shape
+        MethodHandle spread = handle
+            .asSpreader(Object[].class, params.size())
+            .asType(MethodType.methodType(Object.class, Object[].class));
+        
+        String definition;
+        try {
+            definition = objectMapper.writeValueAsString(definition(tool, params));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Tool definition is not serializable: " + method, e);
+        }
+        return new ToolMethod(tool.name(), definition, params, tool.maxConcurrent(), tool.maxQueued(),
+            tool.dedicatedExecutor(), tool.idempotent(), args -> (Object) spread.invokeExact(args));
+    }
+    
+    String name() {
+        return name;
+    }
+    
+    /**
+     * The tool's entry in the request's tools array, as JSON
+     */
+    String definition() {
+        return definition;
+    }
+    
+    /**
+     * Whether calls with equal arguments may share one execution
+     */
+    boolean idempotent() {
+        return singleFlight != null;
+    }
+    
+    /**
+     * The decoded arguments, which compare equal for equivalent argument JSON,
+     * or null if the arguments are invalid
+     */
+    List<Object> argumentKey(String arguments) {
+        try {
+            return Arrays.asList(decoder.decode(arguments));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Counters for the tool's bulkhead, or null if it has none
+     */
+    BulkheadStats bulkheadStats() {
+        return bulkheadStats;
+    }
+    
+    /**
+     * Decode the argument JSON and invoke the tool, through its bulkhead and on
+     * its own executor when it has them. An idempotent tool joins a call with
+     * equal decoded arguments that is already in flight. Invalid arguments
+     * (ToolArgumentException), a full bulkhead (RejectedExecutionException)
+     * and exceptions thrown by the method fail the returned future.
+     */
+    CompletableFuture<ToolResult> invoke(String arguments) {
+        Object[] args;
+        try {
+            args = decoder.decode(arguments);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        if (singleFlight == null) {
+            return admit(args);
+        }
+        // The decoded arguments are canonical: field order, whitespace and unknown fields are gone
+        return singleFlight.run(Arrays.asList(args), () -> admit(args));
+    }
+    
+    private CompletableFuture<ToolResult> admit(Object[] args) {
+        if (bulkhead == null) {
+            return call(args);
+        }
+        return bulkhead.submit(() -> call(args));
+    }
+    
+    private CompletableFuture<ToolResult> call(Object[] args) {
+        if (executor == null) {
+            return start(args);
+        }
+        
+        CompletableFuture<ToolResult> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            CompletableFuture<ToolResult> started = start(args);
+            started.whenComplete((value, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+            result.whenComplete((value, error) -> {
+                if (error != null) {
+                    started.cancel(true);
+                }
+            });
+        });
+        
+        // Giving up on the result interrupts a method still running on the tool's thread
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+    
+    private CompletableFuture<ToolResult> start(Object[] args) {
+        Object result;
+        try {
+            result = invoker.invoke(args);
+        } catch (Throwable e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        if (result instanceof CompletionStage) {
+            CompletableFuture<?> work = ((CompletionStage<?>) result).toCompletableFuture();
+            CompletableFuture<ToolResult> converted = work.thenApply(ToolMethod::toResult);
+            
+            // Giving up on the result (a timeout or cancel) cancels the tool's own future too
+            converted.whenComplete((value, error) -> {
+                if (error != null) {
+                    work.cancel(true);
+                }
+            });
+            return converted;
+        }
+        return CompletableFuture.completedFuture(toResult(result));
+    }
+    
+    private static ToolResult toResult(Object value) {
+        return value instanceof ToolResult ? (ToolResult) value : ToolResult.of((String) value);
+    }
+    
+    private static Map<String, Object> definition(Tool tool, List<ToolParam> params) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        List<String> required = new ArrayList<>();
+        for (ToolParam param : params) {
+            properties.put(param.name, param.schema());
+            if (param.required) {
+                required.add(param.name);
+            }
+        }
+        
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("type", "object");
+        parameters.put("properties", properties);
+        parameters.put("required", required);
+        
+        Map<String, Object> function = new LinkedHashMap<>();
+        function.put("name", tool.name());
+        function.put("description", tool.description());
+        function.put("parameters", parameters);
+        
+        Map<String, Object> definition = new LinkedHashMap<>();
+        definition.put("type", "function");
+        definition.put("function", function);
+        return definition;
+    }
+    
+    /**
+     * One declared parameter, as the argument decoder sees it
+     */
+    static final class ToolParam {
+        final String name;
+        final String description;
+        final Class<?> type;
+        final boolean required;
+        final List<String> allowed;
+        
+        ToolParam(String name, String description, Class<?> type, boolean required, List<String> allowed) {
+            this.name = name;
+            this.description = description;
+            this.type = type;
+            this.required = required;
+            this.allowed = allowed;
+        }
+        
+        static ToolParam of(Param param, Class<?> type, Method method) {
+            String name = param.name();
+            if (jsonType(type) == null) {
+                throw new IllegalArgumentException("Unsupported type " + type.getName() + " for parameter "
+                    + name + ": " + method);
+            }
+            if (!param.required() && type.isPrimitive()) {
+                throw new IllegalArgumentException("Optional parameter " + name + " must not be primitive: " + method);
+            }
+            if (param.allowed().length > 0 && type != String.class) {
+                throw new IllegalArgumentException("Allowed values need a String parameter: " + name + " of " + method);
+            }
+            return new ToolParam(name, param.description(), type, param.required(), List.of(param.allowed()));
+        }
+        
+        Map<String, Object> schema() {
+            Map<String, Object> schema = new LinkedHashMap<>();
+            schema.put("type", jsonType(type));
+            if (!description.isEmpty()) {
+                schema.put("description", description);
+            }
+            if (!allowed.isEmpty()) {
+                schema.put("enum", allowed);
+            }
+            return schema;
+        }
+        
+        /**
+         * The JSON schema type for a parameter type, or null if it is not supported
+         */
+        static String jsonType(Class<?> type) {
+            if (type == String.class) {
+                return "string";
+            } else if (type == double.class || type == Double.class || type == float.class || type == Float.class) {
+                return "number";
+            } else if (type == int.class || type == Integer.class || type == long.class || type == Long.class) {
+                return "integer";
+            } else if (type == boolean.class || type == Boolean.class) {
+                return "boolean";
+            }
+            return null;
+        }
+    }
+}
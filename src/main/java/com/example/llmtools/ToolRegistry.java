@@ -0,0 +1,108 @@
+package com.example.llmtools;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+/**
+ * The tools offered to the LLM.
+ *
+ * Tools come either ready-made from the bindings generated at compile time
+ * or from scanning {@link Tool}-annotated methods of the extra holders, which
+ * happens once at construction. The tool definitions are joined into one
+ * pre-encoded tools array and the tools are kept in a name-keyed table, so
+ * dispatching a call is a single map lookup.
+ */
+final class ToolRegistry {
+    
+    private final Map<String, ToolMethod> tools = new HashMap<>();
+    private final String definitionsJson;
+    private final RawValue definitions;
+    
+    /**
+     * @param compiled tools from generated bindings
+     * @param holders objects whose annotated methods are discovered by reflection
+     */
+    ToolRegistry(ObjectMapper objectMapper, List<ToolMethod> compiled, List<?> holders) {
+        List<ToolMethod> all = new ArrayList<>(compiled);
+        
+        for (Object holder : holders) {
+            // Declared methods come back in no particular order; sort for a stable tools array
+            Method[] methods = holder.getClass().getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            
+            for (Method method : methods) {
+                Tool tool = method.getAnnotation(Tool.class);
+                if (tool != null) {
+                    all.add(ToolMethod.of(holder, method, tool, objectMapper));
+                }
+            }
+        }
+        
+        StringBuilder json = new StringBuilder("[");
+        for (ToolMethod tool : all) {
+            if (tools.putIfAbsent(tool.name(), tool) != null) {
+                throw new IllegalArgumentException("Duplicate tool name: " + tool.name());
+            }
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(tool.definition());
+        }
+        this.definitionsJson = json.append(']').toString();
+        this.definitions = compileDefinitions(definitionsJson);
+    }
+    
+    /**
+     * The tool definitions as a pre-encoded JSON array, ready to splice into a request
+     */
+    RawValue definitions() {
+        return definitions;
+    }
+    
+    /**
+     * The same tools array as a String, e.g. for counting its tokens
+     */
+    String definitionsJson() {
+        return definitionsJson;
+    }
+    
+    /**
+     * Bulkhead counters by tool name, for the tools that declare a bulkhead
+     */
+    Map<String, BulkheadStats> bulkheadStats() {
+        Map<String, BulkheadStats> stats = new TreeMap<>();
+        for (ToolMethod tool : tools.values()) {
+            if (tool.bulkheadStats() != null) {
+                stats.put(tool.name(), tool.bulkheadStats());
+            }
+        }
+        return stats;
+    }
+    
+    /**
+     * The tool with the given name, or null if none is registered
+     */
+    ToolMethod find(String name) {
+        return tools.get(name);
+    }
+    
+    /**
+     * Encode the tools array once into a UTF-8 fragment. Every request writes it
+     * with writeRawValue, which copies the cached bytes instead of re-serializing
+     * the definitions.
+     */
+    private static RawValue compileDefinitions(String json) {
+        SerializedString encoded = new SerializedString(json);
+        encoded.asUnquotedUTF8();
+        return new RawValue(encoded);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.llmtools;
+
+/**
+ * The content of a tool message, written into a sink instead of being built
+ * as a String.
+ *
+ * A tool can return a ToolResult (or a CompletableFuture of one) that keeps
+ * the values it found and only writes the text when its tool message is
+ * encoded for the follow-up request. The sink's characters go straight into
+ * the JSON generator. writeTo may be called more than once and must write the
+ * same text each time.
+ */
+@FunctionalInterface
+public interface ToolResult {
+    
+    void writeTo(ToolResultSink sink);
+    
+    static ToolResult of(String text) {
+        return sink -> sink.append(text);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.llmtools;
+
+import java.io.IOException;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Character buffer a {@link ToolResult} writes its text into.
+ *
+ * When a tool message is encoded, its result is written into a reused
+ * per-thread sink and the buffer is handed to the JSON generator as one
+ * string value, so no intermediate String is created for it.
+ */
+public final class ToolResultSink implements Appendable, CharSequence {
+    
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<ToolResultSink> SINKS = ThreadLocal.withInitial(ToolResultSink::new);
+    
+    private char[] buffer = new char[256];
+    private int length;
+    
+    ToolResultSink() {
+    }
+    
+    @Override
+    public ToolResultSink append(CharSequence text) {
+        return append(text, 0, text != null ? text.length() : 4);
+    }
+    
+    @Override
+    public ToolResultSink append(CharSequence text, int start, int end) {
+        if (text == null) {
+            text = "null";
+        }
+        ensureCapacity(end - start);
+        if (text instanceof String) {
+            ((String) text).getChars(start, end, buffer, length);
+            length += end - start;
+        } else {
+            for (int i = start; i < end; i++) {
+                buffer[length++] = text.charAt(i);
+            }
+        }
+        return this;
+    }
+    
+    @Override
+    public ToolResultSink append(char c) {
+        ensureCapacity(1);
+        buffer[length++] = c;
+        return this;
+    }
+    
+    /**
+     * Append a decimal integer without going through a String
+     */
+    public ToolResultSink append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append("-9223372036854775808");
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+    
+    @Override
+    public int length() {
+        return length;
+    }
+    
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return buffer[index];
+    }
+    
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(buffer, start, end - start);
+    }
+    
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+    
+    /**
+     * Render a result to a String, for callers that need the text itself
+     */
+    static String render(ToolResult result) {
+        ToolResultSink sink = new ToolResultSink();
+        result.writeTo(sink);
+        return sink.toString();
+    }
+    
+    /**
+     * Count a result's tokens through this thread's reusable sink
+     */
+    static int countTokens(ToolResult result, Tokenizer tokenizer) {
+        ToolResultSink sink = SINKS.get();
+        try {
+            result.writeTo(sink);
+            return tokenizer.countTokens(sink);
+        } finally {
+            sink.clear();
+        }
+    }
+    
+    /**
+     * Write a result as a JSON string value, through this thread's reusable sink
+     */
+    static void write(ToolResult result, JsonGenerator gen) throws IOException {
+        ToolResultSink sink = SINKS.get();
+        try {
+            result.writeTo(sink);
+            gen.writeString(sink.buffer, 0, sink.length);
+        } finally {
+            sink.clear();
+        }
+    }
+    
+    private void clear() {
+        length = 0;
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new char[256];
+        }
+    }
+    
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            char[] grown = new char[Math.max(buffer.length * 2, length + extra)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+}
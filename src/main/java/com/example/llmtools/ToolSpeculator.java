@@ -0,0 +1,22 @@
+package com.example.llmtools;
+
+import java.util.List;
+
+/**
+ * Guesses, from the user message alone, which tool calls the model is about
+ * to request. The caller starts the predicted calls while the first LLM call
+ * is still in flight and hands their results over when the model does ask
+ * for them; predictions it never asks for are cancelled.
+ *
+ * Only idempotent tools are prefetched, so a wrong guess costs work but
+ * never has side effects.
+ */
+@FunctionalInterface
+public interface ToolSpeculator {
+    
+    /**
+     * Likely tool calls for this message, possibly none. Only the name and
+     * arguments of each call are used; the id may be null.
+     */
+    List<ToolCall> predict(String userMessage);
+}
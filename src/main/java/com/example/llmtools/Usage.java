@@ -0,0 +1,34 @@
+package com.example.llmtools;
+
+/**
+ * Token usage reported by the LLM for one completion
+ */
+public final class Usage {
+    
+    private final int promptTokens;
+    private final int completionTokens;
+    private final int totalTokens;
+    
+    public Usage(int promptTokens, int completionTokens, int totalTokens) {
+        this.promptTokens = promptTokens;
+        this.completionTokens = completionTokens;
+        this.totalTokens = totalTokens;
+    }
+    
+    public int promptTokens() {
+        return promptTokens;
+    }
+    
+    public int completionTokens() {
+        return completionTokens;
+    }
+    
+    public int totalTokens() {
+        return totalTokens;
+    }
+    
+    @Override
+    public String toString() {
+        return "Usage{prompt=" + promptTokens + ", completion=" + completionTokens + ", total=" + totalTokens + "}";
+    }
+}
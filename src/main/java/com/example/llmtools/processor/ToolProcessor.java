@@ -0,0 +1,347 @@
+package com.example.llmtools.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import com.example.llmtools.Param;
+import com.example.llmtools.Tool;
+
+/**
+ * Generates tool bindings at compile time.
+ *
+ * For every class in com.example.llmtools with {@link Tool} methods, writes a
+ * {@code <Holder>Bindings} class holding each tool's JSON definition as a
+ * string constant and a {@code tools(holder)} factory whose invokers call the
+ * methods directly. Registering those tools needs no reflection and no schema
+ * building at runtime. The rules match the reflective path in ToolMethod and
+ * violations are reported as compile errors.
+ */
+@SupportedAnnotationTypes("com.example.llmtools.Tool")
+public class ToolProcessor extends AbstractProcessor {
+    
+    private static final String TOOLS_PACKAGE = "com.example.llmtools";
+    
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+    
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // Group the tool methods by holder, keeping declaration order
+        Map<TypeElement, List<ExecutableElement>> holders = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(Tool.class)) {
+            if (element.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+            TypeElement holder = (TypeElement) element.getEnclosingElement();
+            holders.computeIfAbsent(holder, h -> new ArrayList<>()).add((ExecutableElement) element);
+        }
+        
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : holders.entrySet()) {
+            TypeElement holder = entry.getKey();
+            PackageElement pkg = processingEnv.getElementUtils().getPackageOf(holder);
+            if (!pkg.getQualifiedName().contentEquals(TOOLS_PACKAGE)) {
+                // Bindings use package-private types; holders elsewhere are discovered at runtime
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "Not generating bindings outside " + TOOLS_PACKAGE, holder);
+                continue;
+            }
+            
+            List<ToolSource> tools = new ArrayList<>();
+            Set<String> names = new HashSet<>();
+            for (ExecutableElement method : entry.getValue()) {
+                ToolSource tool = toolSource(method);
+                if (tool == null) {
+                    continue;
+                }
+                if (!names.add(tool.name)) {
+                    error(method, "Duplicate tool name: " + tool.name);
+                    continue;
+                }
+                tools.add(tool);
+            }
+            
+            writeBindings(holder, tools);
+        }
+        return true;
+    }
+    
+    /**
+     * Validate a tool method and collect what the bindings need, or report errors and return null
+     */
+    private ToolSource toolSource(ExecutableElement method) {
+        Tool tool = method.getAnnotation(Tool.class);
+        boolean valid = true;
+        
+        if (method.getModifiers().contains(Modifier.PRIVATE)) {
+            error(method, "Tool methods must not be private");
+            valid = false;
+        }
+        if (!isSupportedReturnType(method.getReturnType())) {
+            error(method, "Tool method must return String, ToolResult or a CompletableFuture of either");
+            valid = false;
+        }
+        if (tool.maxConcurrent() < 0 || tool.maxQueued() < 0) {
+            error(method, "maxConcurrent and maxQueued must not be negative");
+            valid = false;
+        }
+        if (tool.dedicatedExecutor() && tool.maxConcurrent() == 0) {
+            error(method, "A dedicated executor needs maxConcurrent to size its pool");
+            valid = false;
+        }
+        
+        StringBuilder properties = new StringBuilder();
+        StringBuilder required = new StringBuilder();
+        List<String> params = new ArrayList<>();
+        List<String> casts = new ArrayList<>();
+        
+        for (VariableElement parameter : method.getParameters()) {
+            Param param = parameter.getAnnotation(Param.class);
+            if (param == null) {
+                error(parameter, "Tool parameters need @Param");
+                valid = false;
+                continue;
+            }
+            
+            TypeMirror type = parameter.asType();
+            String jsonType = jsonType(type);
+            if (jsonType == null) {
+                error(parameter, "Unsupported tool parameter type " + type);
+                valid = false;
+                continue;
+            }
+            if (!param.required() && type.getKind().isPrimitive()) {
+                error(parameter, "Optional parameter " + param.name() + " must not be primitive");
+                valid = false;
+            }
+            if (param.allowed().length > 0 && !jsonType.equals("string")) {
+                error(parameter, "Allowed values need a String parameter");
+                valid = false;
+            }
+            
+            // Schema property
+            if (properties.length() > 0) {
+                properties.append(',');
+            }
+            properties.append(json(param.name())).append(":{\"type\":").append(json(jsonType));
+            if (!param.description().isEmpty()) {
+                properties.append(",\"description\":").append(json(param.description()));
+            }
+            if (param.allowed().length > 0) {
+                properties.append(",\"enum\":[");
+                for (int i = 0; i < param.allowed().length; i++) {
+                    properties.append(i > 0 ? "," : "").append(json(param.allowed()[i]));
+                }
+                properties.append(']');
+            }
+            properties.append('}');
+            if (param.required()) {
+                required.append(required.length() > 0 ? "," : "").append(json(param.name()));
+            }
+            
+            // Runtime parameter spec and the cast applied to its bound value
+            params.add("new ToolMethod.ToolParam(" + literal(param.name()) + ", " + literal(param.description())
+                + ", " + typeName(type) + ".class, " + param.required() + ", " + allowedList(param.allowed()) + ")");
+            casts.add("(" + typeName(type) + ") args[" + casts.size() + "]");
+        }
+        
+        if (!valid) {
+            return null;
+        }
+        
+        String definition = "{\"type\":\"function\",\"function\":{\"name\":" + json(tool.name())
+            + ",\"description\":" + json(tool.description())
+            + ",\"parameters\":{\"type\":\"object\",\"properties\":{" + properties + "},\"required\":["
+            + required + "]}}}";
+        
+        return new ToolSource(tool.name(), method, definition, params, casts);
+    }
+    
+    private void writeBindings(TypeElement holder, List<ToolSource> tools) {
+        String holderName = holder.getQualifiedName().toString().substring(TOOLS_PACKAGE.length() + 1);
+        String bindingsName = holderName.replace('.', '_') + "Bindings";
+        
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(TOOLS_PACKAGE).append(";\n\n");
+        source.append("import java.util.List;\n");
+        source.append("import javax.annotation.processing.Generated;\n\n");
+        source.append("/**\n * Tool bindings for {@link ").append(holderName).append("}, generated at compile time\n */\n");
+        source.append("@Generated(\"").append(ToolProcessor.class.getName()).append("\")\n");
+        source.append("final class ").append(bindingsName).append(" {\n\n");
+        
+        for (ToolSource tool : tools) {
+            source.append("    static final String ").append(constantName(tool.name)).append(" =\n        ")
+                .append(literal(tool.definition)).append(";\n\n");
+        }
+        
+        source.append("    private ").append(bindingsName).append("() {\n    }\n\n");
+        source.append("    static List<ToolMethod> tools(").append(holderName).append(" holder) {\n");
+        source.append("        return List.of(");
+        for (int t = 0; t < tools.size(); t++) {
+            ToolSource tool = tools.get(t);
+            boolean isStatic = tool.method.getModifiers().contains(Modifier.STATIC);
+            source.append(t > 0 ? "," : "").append("\n            new ToolMethod(\n");
+            source.append("                ").append(literal(tool.name)).append(",\n");
+            source.append("                ").append(constantName(tool.name)).append(",\n");
+            source.append("                List.of(");
+            for (int i = 0; i < tool.params.size(); i++) {
+                source.append(i > 0 ? "," : "").append("\n                    ").append(tool.params.get(i));
+            }
+            source.append(tool.params.isEmpty() ? "),\n" : "\n                ),\n");
+            Tool limits = tool.method.getAnnotation(Tool.class);
+            source.append("                ").append(limits.maxConcurrent()).append(", ").append(limits.maxQueued())
+                .append(", ").append(limits.dedicatedExecutor()).append(", ").append(limits.idempotent()).append(",\n");
+            source.append("                args -> ").append(isStatic ? holderName : "holder").append('.')
+                .append(tool.method.getSimpleName()).append('(').append(String.join(", ", tool.casts))
+                .append(")\n            )");
+        }
+        source.append(tools.isEmpty() ? ");\n" : "\n        );\n");
+        source.append("    }\n}\n");
+        
+        try (Writer writer = processingEnv.getFiler()
+                .createSourceFile(TOOLS_PACKAGE + "." + bindingsName, holder).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(holder, "Could not write " + bindingsName + ": " + e.getMessage());
+        }
+    }
+    
+    private boolean isSupportedReturnType(TypeMirror type) {
+        if (isType(type, "java.lang.String") || isType(type, TOOLS_PACKAGE + ".ToolResult")) {
+            return true;
+        }
+        TypeElement completionStage = processingEnv.getElementUtils()
+            .getTypeElement("java.util.concurrent.CompletionStage");
+        return type.getKind() == TypeKind.DECLARED && processingEnv.getTypeUtils().isAssignable(
+            processingEnv.getTypeUtils().erasure(type),
+            processingEnv.getTypeUtils().erasure(completionStage.asType()));
+    }
+    
+    /**
+     * Same mapping as ToolMethod.ToolParam.jsonType, on type mirrors
+     */
+    private static String jsonType(TypeMirror type) {
+        switch (type.getKind()) {
+            case DOUBLE:
+            case FLOAT:
+                return "number";
+            case INT:
+            case LONG:
+                return "integer";
+            case BOOLEAN:
+                return "boolean";
+            case DECLARED:
+                if (isType(type, "java.lang.String")) {
+                    return "string";
+                } else if (isType(type, "java.lang.Double") || isType(type, "java.lang.Float")) {
+                    return "number";
+                } else if (isType(type, "java.lang.Integer") || isType(type, "java.lang.Long")) {
+                    return "integer";
+                } else if (isType(type, "java.lang.Boolean")) {
+                    return "boolean";
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+    
+    private static boolean isType(TypeMirror type, String qualifiedName) {
+        return type.getKind() == TypeKind.DECLARED && type.toString().equals(qualifiedName);
+    }
+    
+    private static String typeName(TypeMirror type) {
+        return type.getKind().isPrimitive() ? type.toString() : type.toString().replace("java.lang.", "");
+    }
+    
+    private static String allowedList(String[] allowed) {
+        StringBuilder list = new StringBuilder("List.of(");
+        for (int i = 0; i < allowed.length; i++) {
+            list.append(i > 0 ? ", " : "").append(literal(allowed[i]));
+        }
+        return list.append(')').toString();
+    }
+    
+    private static String constantName(String toolName) {
+        return toolName.toUpperCase().replaceAll("[^A-Z0-9]", "_") + "_DEFINITION";
+    }
+    
+    /**
+     * A JSON string literal
+     */
+    private static String json(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+    
+    /**
+     * A Java string literal
+     */
+    private static String literal(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+    
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+    
+    /**
+     * What the bindings class needs for one tool
+     */
+    private static final class ToolSource {
+        final String name;
+        final ExecutableElement method;
+        final String definition;
+        final List<String> params;
+        final List<String> casts;
+        
+        ToolSource(String name, ExecutableElement method, String definition, List<String> params, List<String> casts) {
+            this.name = name;
+            this.method = method;
+            this.definition = definition;
+            this.params = params;
+            this.casts = casts;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.llmtools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+class ArgumentDecoderTest {
+    
+    // Mirrors BuiltinTools.calculate: calculate(operation, a, b) plus an optional integer
+    private final ArgumentDecoder decoder = new ArgumentDecoder("calculate", List.of(
+        new ToolMethod.ToolParam("operation", "", String.class, true, List.of("add", "subtract", "multiply", "divide")),
+        new ToolMethod.ToolParam("a", "", double.class, true, List.of()),
+        new ToolMethod.ToolParam("b", "", double.class, true, List.of()),
+        new ToolMethod.ToolParam("precision", "", Integer.class, false, List.of())));
+    
+    @Test
+    void decodesArgumentsInParameterOrder() {
+        Object[] args = decoder.decode("{\"b\": 5, \"extra\": {\"ignored\": [1, 2]}, \"a\": 150, \"operation\": \"divide\"}");
+        assertArrayEquals(new Object[] { "divide", 150.0, 5.0, null }, args);
+    }
+    
+    @Test
+    void bindsOptionalArguments() {
+        Object[] args = decoder.decode("{\"operation\": \"add\", \"a\": 1.5, \"b\": 2, \"precision\": 3}");
+        assertArrayEquals(new Object[] { "add", 1.5, 2.0, 3 }, args);
+    }
+    
+    @Test
+    void rejectsMissingRequiredArgument() {
+        assertProblem("missing required argument 'b'", "{\"operation\": \"add\", \"a\": 1}");
+    }
+    
+    @Test
+    void treatsNullAsMissing() {
+        assertProblem("missing required argument 'a'", "{\"operation\": \"add\", \"a\": null, \"b\": 1}");
+    }
+    
+    @Test
+    void treatsBlankArgumentsAsAnEmptyObject() {
+        assertProblem("missing required argument 'operation'", " ");
+    }
+    
+    @Test
+    void rejectsWrongType() {
+        assertProblem("argument 'a' must be a number, got a string", "{\"operation\": \"add\", \"a\": \"1\", \"b\": 2}");
+        assertProblem("argument 'operation' must be a string, got a number", "{\"operation\": 1, \"a\": 1, \"b\": 2}");
+        assertProblem("argument 'precision' must be an integer, got a number",
+            "{\"operation\": \"add\", \"a\": 1, \"b\": 2, \"precision\": 2.5}");
+    }
+    
+    @Test
+    void rejectsValueOutsideTheEnum() {
+        assertProblem("argument 'operation' must be one of [add, subtract, multiply, divide], got \"modulo\"",
+            "{\"operation\": \"modulo\", \"a\": 1, \"b\": 2}");
+    }
+    
+    @Test
+    void rejectsIntegerOutOfRange() {
+        assertProblem("argument 'precision' is out of range: 3000000000",
+            "{\"operation\": \"add\", \"a\": 1, \"b\": 2, \"precision\": 3000000000}");
+    }
+    
+    @Test
+    void rejectsMalformedArguments() {
+        assertProblem("arguments must be a JSON object", "[1, 2]");
+        assertProblem("unexpected content after the arguments object", "{\"operation\": \"add\", \"a\": 1, \"b\": 2} {}");
+    }
+    
+    @Test
+    void invocationFailsWithTheErrorTheModelIsSent() {
+        ToolMethod tool = new ToolRegistry(new ObjectMapper(), List.of(), List.of(new Calculator())).find("calculate");
+        
+        // LLMToolCaller answers the call with "Error: " + this message
+        CompletionException e = assertThrows(CompletionException.class, () -> tool.invoke("{\"a\": 1, \"b\": 2}").join());
+        assertInstanceOf(ToolArgumentException.class, e.getCause());
+        assertEquals("Invalid arguments for calculate: missing required argument 'operation'", e.getCause().getMessage());
+    }
+    
+    static final class Calculator {
+        @Tool(name = "calculate", description = "Perform basic arithmetic")
+        public String calculate(
+            @Param(name = "operation", allowed = { "add", "subtract", "multiply", "divide" }) String operation,
+            @Param(name = "a") double a,
+            @Param(name = "b") double b
+        ) {
+            return operation + " " + a + " " + b;
+        }
+    }
+    
+    private void assertProblem(String problem, String arguments) {
+        ToolArgumentException e = assertThrows(ToolArgumentException.class, () -> decoder.decode(arguments));
+        assertEquals("Invalid arguments for calculate: " + problem, e.getMessage());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.llmtools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class AsyncLimiterTest {
+    
+    @Test
+    void drainsThousandsOfSynchronousTasksWithoutRecursing() throws Exception {
+        AsyncLimiter limiter = new AsyncLimiter(1);
+        
+        // Hold the only slot so everything else queues up behind it
+        CompletableFuture<Integer> blocker = new CompletableFuture<>();
+        CompletableFuture<Integer> first = limiter.submit(() -> blocker);
+        
+        List<CompletableFuture<Integer>> queued = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            int value = i;
+            queued.add(limiter.submit(() -> CompletableFuture.completedFuture(value)));
+        }
+        
+        blocker.complete(-1);
+        assertEquals(-1, first.get(5, TimeUnit.SECONDS));
+        for (int i = 0; i < queued.size(); i++) {
+            assertEquals(i, queued.get(i).get(5, TimeUnit.SECONDS));
+        }
+        
+        // Every slot came back
+        assertEquals(7, limiter.submit(() -> CompletableFuture.completedFuture(7)).get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void neverRunsMoreThanTheLimit() throws Exception {
+        AsyncLimiter limiter = new AsyncLimiter(3);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        
+        List<CompletableFuture<Integer>> pending = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            CompletableFuture<Integer> task = new CompletableFuture<>();
+            pending.add(task);
+            results.add(limiter.submit(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return task.whenComplete((value, error) -> inFlight.decrementAndGet());
+            }));
+        }
+        
+        for (int i = 0; i < pending.size(); i++) {
+            pending.get(i).complete(i);
+        }
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertTrue(maxInFlight.get() <= 3, "max in flight " + maxInFlight.get());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.llmtools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BpeTokenizerTest {
+    
+    @TempDir
+    Path dir;
+    
+    private BpeTokenizer tokenizer;
+    
+    /**
+     * Single bytes a-d and space, plus merges where "bc" outranks "ab" and "cd":
+     * "abcd" must merge to a|bc|d (3 tokens), not ab|cd (2)
+     */
+    @BeforeEach
+    void loadFixture() throws IOException {
+        tokenizer = BpeTokenizer.load(vocabulary("a", "b", "c", "d", " ", "bc", "ab", "cd"));
+    }
+    
+    @Test
+    void wholePieceInTheVocabularyIsOneToken() {
+        assertEquals(1, tokenizer.countTokens("ab"));
+        assertEquals(1, tokenizer.countTokens("bc"));
+    }
+    
+    @Test
+    void mergesLowestRankFirst() {
+        assertEquals(3, tokenizer.countTokens("abcd"));
+        // ab|ab: the pairs merge left to right at equal rank, "ba" is not a token
+        assertEquals(2, tokenizer.countTokens("abab"));
+    }
+    
+    @Test
+    void countsEachPieceSeparately() {
+        // "abcd" and " abcd": the leading space stays a token of its own
+        assertEquals(7, tokenizer.countTokens("abcd abcd"));
+        // Merge results are cached per piece; a second count agrees
+        assertEquals(7, tokenizer.countTokens("abcd abcd"));
+    }
+    
+    @Test
+    void bytesOutsideTheVocabularyCountOneEach() {
+        // "é" is two UTF-8 bytes, neither of them a token
+        assertEquals(2, tokenizer.countTokens("é"));
+        assertEquals(0, tokenizer.countTokens(""));
+    }
+    
+    @Test
+    void prefixLengthCutsAtPieceBoundaries() {
+        // Pieces "ab" (1 token), " ab" (2), " ab" (2)
+        String text = "ab ab ab";
+        assertEquals(0, tokenizer.prefixLength(text, 0));
+        assertEquals(2, tokenizer.prefixLength(text, 1));
+        assertEquals(2, tokenizer.prefixLength(text, 2));
+        assertEquals(5, tokenizer.prefixLength(text, 3));
+        assertEquals(5, tokenizer.prefixLength(text, 4));
+        assertEquals(text.length(), tokenizer.prefixLength(text, 5));
+    }
+    
+    @Test
+    void rejectsMalformedVocabulary() throws IOException {
+        Path file = dir.resolve("broken.tiktoken");
+        Files.writeString(file, "YQ== 0\nYg==\n");
+        IOException e = assertThrows(IOException.class, () -> BpeTokenizer.load(file));
+        assertEquals("Malformed vocabulary line 2 in " + file, e.getMessage());
+    }
+    
+    /**
+     * Write a tiktoken-style vocabulary ranking the tokens in the given order
+     */
+    private Path vocabulary(String... tokens) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int rank = 0; rank < tokens.length; rank++) {
+            byte[] bytes = tokens[rank].getBytes(StandardCharsets.UTF_8);
+            lines.add(Base64.getEncoder().encodeToString(bytes) + " " + rank);
+        }
+        Path file = dir.resolve("fixture.tiktoken");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        return file;
+    }
+}
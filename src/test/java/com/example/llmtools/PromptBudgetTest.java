@@ -0,0 +1,73 @@
+package com.example.llmtools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PromptBudgetTest {
+    
+    // One token per four characters, plus Message.OVERHEAD_TOKENS per message
+    private final Tokenizer tokenizer = Tokenizer.estimating();
+    private final PromptBudget budget = PromptBudget.builder().maxPromptTokens(100).build();
+    
+    @Test
+    void acceptsPromptUpToTheBudget() throws Exception {
+        budget.check(100);
+    }
+    
+    @Test
+    void rejectsPromptOverTheBudget() {
+        PromptTooLargeException e = assertThrows(PromptTooLargeException.class, () -> budget.check(101));
+        assertEquals(101, e.promptTokens());
+        assertEquals(100, e.maxPromptTokens());
+        assertEquals("Prompt too large: 101 tokens, budget is 100", e.getMessage());
+    }
+    
+    @Test
+    void leavesResultsThatFitAlone() {
+        List<Message> results = List.of(Message.tool("1", "x".repeat(40)), Message.tool("2", "y".repeat(40)));
+        assertSame(results, budget.trim(results, 28, tokenizer));
+    }
+    
+    @Test
+    void trimsTheLargestResultAndKeepsTheSmallOne() {
+        // 14 and 104 tokens into 64: the small one fits its share, the large one gets the other 50
+        Message small = Message.tool("1", "x".repeat(40));
+        Message large = Message.tool("2", "y".repeat(400));
+        List<Message> trimmed = budget.trim(List.of(large, small), 64, tokenizer);
+        
+        assertSame(small, trimmed.get(1));
+        assertEquals("2", trimmed.get(0).toolCallId());
+        // 50 - 4 overhead - 3 for the marker leaves 43 tokens, 172 characters
+        assertEquals("y".repeat(172) + "\n[truncated]", trimmed.get(0).content());
+        assertEquals(64, total(trimmed));
+    }
+    
+    @Test
+    void sharesTheBudgetEquallyBetweenLargeResults() {
+        List<Message> trimmed = budget.trim(
+            List.of(Message.tool("1", "x".repeat(400)), Message.tool("2", "y".repeat(400))), 60, tokenizer);
+        
+        // 30 tokens each: 23 of content, 92 characters
+        assertEquals("x".repeat(92) + "\n[truncated]", trimmed.get(0).content());
+        assertEquals("y".repeat(92) + "\n[truncated]", trimmed.get(1).content());
+        assertTrue(total(trimmed) <= 60);
+    }
+    
+    @Test
+    void keepsOnlyTheMarkerWhenNothingIsAvailable() {
+        List<Message> trimmed = budget.trim(List.of(Message.tool("1", "x".repeat(400))), -5, tokenizer);
+        assertEquals("\n[truncated]", trimmed.get(0).content());
+    }
+    
+    private int total(List<Message> messages) {
+        int tokens = 0;
+        for (Message message : messages) {
+            tokens += message.countTokens(tokenizer);
+        }
+        return tokens;
+    }
+}
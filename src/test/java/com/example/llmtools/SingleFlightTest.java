@@ -0,0 +1,118 @@
+package com.example.llmtools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+    
+    /**
+     * Hands out a new pending future per call and remembers them all
+     */
+    private static final class Calls implements Supplier<CompletableFuture<String>> {
+        final List<CompletableFuture<String>> started = new ArrayList<>();
+        
+        @Override
+        public CompletableFuture<String> get() {
+            CompletableFuture<String> call = new CompletableFuture<>();
+            started.add(call);
+            return call;
+        }
+    }
+    
+    @Test
+    void concurrentCallersShareOneCall() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        Calls calls = new Calls();
+        
+        CompletableFuture<String> first = singleFlight.run("luke", calls);
+        CompletableFuture<String> second = singleFlight.run("luke", calls);
+        assertEquals(1, calls.started.size());
+        
+        calls.started.get(0).complete("Luke Skywalker");
+        assertEquals("Luke Skywalker", first.get(5, TimeUnit.SECONDS));
+        assertEquals("Luke Skywalker", second.get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void oneCallerCancellingLeavesTheCallToTheOthers() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        Calls calls = new Calls();
+        
+        CompletableFuture<String> first = singleFlight.run("luke", calls);
+        CompletableFuture<String> second = singleFlight.run("luke", calls);
+        CompletableFuture<String> third = singleFlight.run("luke", calls);
+        
+        first.cancel(true);
+        assertFalse(calls.started.get(0).isCancelled());
+        
+        calls.started.get(0).complete("Luke Skywalker");
+        assertEquals("Luke Skywalker", second.get(5, TimeUnit.SECONDS));
+        assertEquals("Luke Skywalker", third.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.started.size());
+    }
+    
+    @Test
+    void lastCallerLeavingCancelsTheCall() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        Calls calls = new Calls();
+        
+        CompletableFuture<String> first = singleFlight.run("luke", calls);
+        CompletableFuture<String> second = singleFlight.run("luke", calls);
+        
+        first.cancel(true);
+        assertFalse(calls.started.get(0).isCancelled());
+        second.cancel(true);
+        assertTrue(calls.started.get(0).isCancelled());
+    }
+    
+    @Test
+    void callerAfterAnAbandonedCallStartsAFreshOne() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        Calls calls = new Calls();
+        
+        singleFlight.run("luke", calls).cancel(true);
+        CompletableFuture<String> next = singleFlight.run("luke", calls);
+        assertEquals(2, calls.started.size());
+        
+        calls.started.get(1).complete("Luke Skywalker");
+        assertEquals("Luke Skywalker", next.get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void callerAfterCompletionStartsAFreshCall() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        Calls calls = new Calls();
+        
+        CompletableFuture<String> first = singleFlight.run("luke", calls);
+        calls.started.get(0).complete("Luke Skywalker");
+        assertEquals("Luke Skywalker", first.get(5, TimeUnit.SECONDS));
+        
+        // Nothing is cached once the call has completed
+        CompletableFuture<String> second = singleFlight.run("luke", calls);
+        assertEquals(2, calls.started.size());
+        calls.started.get(1).complete("Luke Skywalker (updated)");
+        assertEquals("Luke Skywalker (updated)", second.get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void failureReachesEveryCallerWithoutCaching() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        Calls calls = new Calls();
+        
+        CompletableFuture<String> first = singleFlight.run("luke", calls);
+        CompletableFuture<String> second = singleFlight.run("luke", calls);
+        calls.started.get(0).completeExceptionally(new IllegalStateException("SWAPI down"));
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        
+        singleFlight.run("luke", calls);
+        assertEquals(2, calls.started.size());
+    }
+}